@@ -0,0 +1,54 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the AI's first turn on a board at intermediate density that has been opened in the middle,
+ * which plays every move that can be deduced from the opening, or guesses if there are none
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AIBenchmark {
+
+    @Param({"8", "64", "512", "4096"})
+    int size;
+
+    /**The seed the boards are made from, which changes every call so that the AI cannot learn one board**/
+    private long seed;
+
+    private Object board;
+
+    private Object ai;
+
+    @Setup(Level.Invocation)
+    public void setUp() throws Throwable {
+        board = Engine.newBoard(size, size, (int) (size * size * 0.16), seed++);
+        Engine.setSafeOpening(board, true);
+        Engine.leftClick(board, size / 2, size / 2);
+        ai = Engine.newAI();
+    }
+
+    @Benchmark
+    public Object playTurn() throws Throwable {
+        Engine.playTurn(ai, board);
+        return board;
+    }
+
+}
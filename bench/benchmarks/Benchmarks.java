@@ -0,0 +1,32 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks like JMH's own main does, but always with the allocation profiler,
+ * so that every result reports the bytes allocated per call alongside the time taken
+ */
+public final class Benchmarks {
+
+    /**Private constructor so that Benchmarks cannot be instantiated**/
+    private Benchmarks(){ }
+
+    /**
+     * Runs the benchmarks
+     * @param args any of JMH's command line options
+     * @throws CommandLineOptionException if the options cannot be read
+     * @throws RunnerException if a benchmark fails
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,124 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the board's rules on square boards from 8x8 to 4096x4096.
+ * Placing bombs and revealing change the board, so each call is given a new board
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    /**The seed every board is made from, so every run places the same bombs**/
+    private static final long SEED = 42;
+
+    /**
+     * A board that has not been clicked, with bombs at a given density
+     */
+    @State(Scope.Thread)
+    public static class EmptyBoard {
+
+        @Param({"8", "64", "512", "4096"})
+        int size;
+
+        /**The fraction of tiles that are bombs: about beginner, intermediate and expert**/
+        @Param({"0.12", "0.16", "0.21"})
+        double density;
+
+        Object board;
+
+        @Setup(Level.Invocation)
+        public void setUp() throws Throwable {
+            board = Engine.newBoard(size, size, (int) (size * size * density), SEED);
+        }
+
+    }
+
+    /**
+     * A board whose bombs have been placed around a safe opening in the middle but which has
+     * no open tiles, with one bomb in a hundred tiles so that the opening is a large open region
+     */
+    @State(Scope.Thread)
+    public static class SparseBoard {
+
+        @Param({"8", "64", "512", "4096"})
+        int size;
+
+        Object board;
+
+        @Setup(Level.Invocation)
+        public void setUp() throws Throwable {
+            board = Engine.newBoard(size, size, size * size / 100, SEED);
+            Engine.setSafeOpening(board, true);
+            Engine.placeBombs(board, size / 2, size / 2);
+        }
+
+    }
+
+    /**
+     * A board at intermediate density that has been opened in the middle, and is not changed by the benchmarks
+     */
+    @State(Scope.Thread)
+    public static class PlayedBoard {
+
+        @Param({"8", "64", "512", "4096"})
+        int size;
+
+        Object board;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Throwable {
+            board = Engine.newBoard(size, size, (int) (size * size * 0.16), SEED);
+            Engine.setSafeOpening(board, true);
+            Engine.leftClick(board, size / 2, size / 2);
+        }
+
+    }
+
+    @Benchmark
+    public Object placeBombs(EmptyBoard state) throws Throwable {
+        Engine.placeBombs(state.board, state.size / 2, state.size / 2);
+        return state.board;
+    }
+
+    @Benchmark
+    public int revealOpenRegion(SparseBoard state) throws Throwable {
+        return Engine.leftClick(state.board, state.size / 2, state.size / 2);
+    }
+
+    @Benchmark
+    public int getGameState(PlayedBoard state) throws Throwable {
+        return Engine.getGameState(state.board);
+    }
+
+    @Benchmark
+    public int getFlagCount(PlayedBoard state) throws Throwable {
+        return Engine.getFlagCount(state.board);
+    }
+
+    /**Hovers a corner tile first so that there is a hovered tile to unhover**/
+    @Benchmark
+    public Object unHoverAll(PlayedBoard state) throws Throwable {
+        Engine.hover(state.board, 0, 0);
+        Engine.unHoverAll(state.board);
+        return state.board;
+    }
+
+}
@@ -0,0 +1,194 @@
+package benchmarks;
+
+import processing.core.PApplet;
+import processing.core.PImage;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * The game's classes as seen from the benchmarks.
+ * The game is in the default package, which classes in a package cannot name, and JMH will not
+ * generate benchmarks in the default package. So the benchmarks reach the game through method handles
+ * held in static final fields, which the JIT treats as constants and inlines like direct calls
+ */
+final class Engine {
+
+    private static final MethodHandle NEW_BOARD;
+    private static final MethodHandle PLACE_BOMBS;
+    private static final MethodHandle LEFT_CLICK;
+    private static final MethodHandle RIGHT_CLICK;
+    private static final MethodHandle HOVER;
+    private static final MethodHandle UN_HOVER_ALL;
+    private static final MethodHandle GET_GAME_STATE;
+    private static final MethodHandle GET_FLAG_COUNT;
+    private static final MethodHandle SET_SAFE_OPENING;
+    private static final MethodHandle IS_OPEN;
+    private static final MethodHandle NEW_AI;
+    private static final MethodHandle PLAY_TURN;
+    private static final MethodHandle NEW_SPRITE_CACHE;
+    private static final MethodHandle SET_SIZES;
+    private static final MethodHandle NEW_BOARD_RENDERER;
+    private static final MethodHandle NEW_CAMERA;
+    private static final MethodHandle FIT;
+    private static final MethodHandle GET_TILE_SIZE;
+    private static final MethodHandle DRAW;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Class<?> board = Class.forName("Board");
+            Class<?> clock = Class.forName("Clock");
+            Class<?> ai = Class.forName("AI");
+            Class<?> spriteCache = Class.forName("SpriteCache");
+            Class<?> boardRenderer = Class.forName("BoardRenderer");
+            Class<?> camera = Class.forName("Camera");
+
+            Object systemClock = lookup.findStaticGetter(clock, "SYSTEM", clock).invoke();
+            NEW_BOARD = MethodHandles.insertArguments(
+                    lookup.findConstructor(board, MethodType.methodType(void.class, int.class, int.class, int.class, long.class, clock)),
+                    4, systemClock)
+                    .asType(MethodType.methodType(Object.class, int.class, int.class, int.class, long.class));
+            Method placeBombs = board.getDeclaredMethod("placeBombs", int.class, int.class);
+            placeBombs.setAccessible(true);
+            PLACE_BOMBS = lookup.unreflect(placeBombs)
+                    .asType(MethodType.methodType(void.class, Object.class, int.class, int.class));
+            LEFT_CLICK = virtual(lookup, board, "leftClick", int.class, int.class, int.class);
+            RIGHT_CLICK = virtual(lookup, board, "rightClick", void.class, int.class, int.class);
+            HOVER = virtual(lookup, board, "hover", void.class, int.class, int.class);
+            UN_HOVER_ALL = virtual(lookup, board, "unHoverAll", void.class);
+            GET_GAME_STATE = virtual(lookup, board, "getGameState", int.class);
+            GET_FLAG_COUNT = virtual(lookup, board, "getFlagCount", int.class);
+            SET_SAFE_OPENING = virtual(lookup, board, "setSafeOpening", void.class, boolean.class);
+            Class<?> tileStore = Class.forName("TileStore");
+            IS_OPEN = MethodHandles.filterArguments(
+                    lookup.findVirtual(tileStore, "isOpen", MethodType.methodType(boolean.class, int.class)),
+                    0, lookup.findVirtual(board, "getTiles", MethodType.methodType(tileStore)))
+                    .asType(MethodType.methodType(boolean.class, Object.class, int.class));
+
+            NEW_AI = lookup.findConstructor(ai, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            PLAY_TURN = lookup.findVirtual(ai, "playTurn", MethodType.methodType(void.class, board))
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+
+            NEW_SPRITE_CACHE = lookup.findConstructor(spriteCache, MethodType.methodType(void.class, PApplet.class, PImage[].class))
+                    .asType(MethodType.methodType(Object.class, PApplet.class, PImage[].class));
+            SET_SIZES = virtual(lookup, spriteCache, "setSizes", void.class, int.class, int.class);
+            NEW_BOARD_RENDERER = lookup.findConstructor(boardRenderer, MethodType.methodType(void.class, PApplet.class, spriteCache))
+                    .asType(MethodType.methodType(Object.class, PApplet.class, Object.class));
+            NEW_CAMERA = lookup.findConstructor(camera, MethodType.methodType(void.class, int.class, int.class, int.class, int.class))
+                    .asType(MethodType.methodType(Object.class, int.class, int.class, int.class, int.class));
+            FIT = virtual(lookup, camera, "fit", void.class, int.class, int.class);
+            GET_TILE_SIZE = virtual(lookup, camera, "getTileSize", int.class);
+            DRAW = lookup.findVirtual(boardRenderer, "draw",
+                    MethodType.methodType(void.class, board, camera, int.class))
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class, Object.class, int.class));
+        } catch (Throwable e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**Board.RUNNING**/
+    static final int RUNNING = 1;
+
+    /**Board.WINSTOPPED**/
+    static final int WINSTOPPED = 3;
+
+    /**Private constructor so that Engine cannot be instantiated**/
+    private Engine(){ }
+
+    /**
+     * Finds a public instance method and changes its receiver to Object
+     * @param lookup the lookup to find it with
+     * @param owner the class of the method
+     * @param name the name of the method
+     * @param returnType the return type of the method
+     * @param parameterTypes the parameter types of the method
+     * @return the method handle
+     * @throws ReflectiveOperationException if there is no such method
+     */
+    private static MethodHandle virtual(MethodHandles.Lookup lookup, Class<?> owner, String name,
+                                        Class<?> returnType, Class<?>... parameterTypes) throws ReflectiveOperationException {
+        MethodHandle method = lookup.findVirtual(owner, name, MethodType.methodType(returnType, parameterTypes));
+        return method.asType(method.type().changeParameterType(0, Object.class));
+    }
+
+    static Object newBoard(int rows, int columns, int numBombs, long seed) throws Throwable {
+        return (Object) NEW_BOARD.invokeExact(rows, columns, numBombs, seed);
+    }
+
+    static void placeBombs(Object board, int rowToAvoid, int columnToAvoid) throws Throwable {
+        PLACE_BOMBS.invokeExact(board, rowToAvoid, columnToAvoid);
+    }
+
+    static int leftClick(Object board, int r, int c) throws Throwable {
+        return (int) LEFT_CLICK.invokeExact(board, r, c);
+    }
+
+    static void rightClick(Object board, int r, int c) throws Throwable {
+        RIGHT_CLICK.invokeExact(board, r, c);
+    }
+
+    static void hover(Object board, int r, int c) throws Throwable {
+        HOVER.invokeExact(board, r, c);
+    }
+
+    static void unHoverAll(Object board) throws Throwable {
+        UN_HOVER_ALL.invokeExact(board);
+    }
+
+    static int getGameState(Object board) throws Throwable {
+        return (int) GET_GAME_STATE.invokeExact(board);
+    }
+
+    static int getFlagCount(Object board) throws Throwable {
+        return (int) GET_FLAG_COUNT.invokeExact(board);
+    }
+
+    static void setSafeOpening(Object board, boolean safeOpening) throws Throwable {
+        SET_SAFE_OPENING.invokeExact(board, safeOpening);
+    }
+
+    static boolean isOpen(Object board, int i) throws Throwable {
+        return (boolean) IS_OPEN.invokeExact(board, i);
+    }
+
+    static Object newAI() throws Throwable {
+        return (Object) NEW_AI.invokeExact();
+    }
+
+    static void playTurn(Object ai, Object board) throws Throwable {
+        PLAY_TURN.invokeExact(ai, board);
+    }
+
+    static Object newSpriteCache(PApplet p, PImage[] images) throws Throwable {
+        return (Object) NEW_SPRITE_CACHE.invokeExact(p, images);
+    }
+
+    static void setSizes(Object sprites, int tileSize, int buttonSide) throws Throwable {
+        SET_SIZES.invokeExact(sprites, tileSize, buttonSide);
+    }
+
+    static Object newBoardRenderer(PApplet p, Object sprites) throws Throwable {
+        return (Object) NEW_BOARD_RENDERER.invokeExact(p, sprites);
+    }
+
+    static Object newCamera(int viewX, int viewY, int viewWidth, int viewHeight) throws Throwable {
+        return (Object) NEW_CAMERA.invokeExact(viewX, viewY, viewWidth, viewHeight);
+    }
+
+    static void fit(Object camera, int rows, int columns) throws Throwable {
+        FIT.invokeExact(camera, rows, columns);
+    }
+
+    static int getTileSize(Object camera) throws Throwable {
+        return (int) GET_TILE_SIZE.invokeExact(camera);
+    }
+
+    static void draw(Object renderer, Object board, Object camera, int gameState) throws Throwable {
+        DRAW.invokeExact(renderer, board, camera, gameState);
+    }
+
+}
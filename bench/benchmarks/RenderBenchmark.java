@@ -0,0 +1,137 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import processing.awt.PGraphicsJava2D;
+import processing.core.PApplet;
+import processing.core.PGraphics;
+import processing.core.PImage;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of drawing a board into an offscreen PGraphics, which stands in for the screen.
+ * The images are plain squares of colour, since only their size matters to how long they take to draw
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+
+    /**The width and height of the screen, which the tiles shrink to fit down to the smallest tile size,
+     * past which only the part of the board in view is drawn**/
+    private static final int SCREEN = 1024;
+
+    @Param({"8", "64", "512", "4096"})
+    int size;
+
+    private Object camera;
+
+    private Object board;
+
+    private Object renderer;
+
+    /**The closed tile nearest the middle of the board, which is in view and whose state is changed every frame**/
+    private int changedRow;
+    private int changedColumn;
+
+    /**The game state drawn in the last full redraw**/
+    private int gameState = Engine.RUNNING;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        PApplet p = new HeadlessSketch();
+        p.g = p.createGraphics(SCREEN, SCREEN);
+        p.g.beginDraw();
+        PImage[] images = new PImage[24];
+        for (int i = 0; i < images.length; i++) {
+            images[i] = p.createImage(32, 32, PApplet.ARGB);
+            images[i].loadPixels();
+            Arrays.fill(images[i].pixels, 0xFF000000 | (i * 0x0A0B0C));
+            images[i].updatePixels();
+        }
+        Object sprites = Engine.newSpriteCache(p, images);
+        camera = Engine.newCamera(0, 0, SCREEN, SCREEN);
+        Engine.fit(camera, size, size);
+        Engine.setSizes(sprites, Engine.getTileSize(camera), 64);
+        renderer = Engine.newBoardRenderer(p, sprites);
+
+        board = Engine.newBoard(size, size, (int) (size * size * 0.16), 42);
+        Engine.setSafeOpening(board, true);
+        Engine.leftClick(board, size / 2, size / 2);
+        int nearest = Integer.MAX_VALUE;
+        for (int i = 0; i < size * size; i++) {
+            int distance = Math.abs(i / size - size / 2) + Math.abs(i % size - size / 2);
+            if(!Engine.isOpen(board, i) && distance < nearest){
+                nearest = distance;
+                changedRow = i / size;
+                changedColumn = i % size;
+            }
+        }
+        Engine.draw(renderer, board, camera, Engine.RUNNING);
+    }
+
+    /**
+     * A sketch that is never run, whose graphics are all offscreen
+     */
+    private static class HeadlessSketch extends PApplet {
+
+        @Override
+        public PGraphics createGraphics(int w, int h){
+            PGraphics graphics = new HeadlessGraphics();
+            graphics.setParent(this);
+            graphics.setPrimary(false);
+            graphics.setSize(w, h);
+            return graphics;
+        }
+
+    }
+
+    /**
+     * Java2D graphics that draw into a plain image, since without a display there is no screen
+     * for Processing to make a compatible image from
+     */
+    private static class HeadlessGraphics extends PGraphicsJava2D {
+
+        @Override
+        public Graphics2D checkImage(){
+            if(image == null || ((BufferedImage) image).getWidth() != width * pixelDensity
+                    || ((BufferedImage) image).getHeight() != height * pixelDensity){
+                image = new BufferedImage(width * pixelDensity, height * pixelDensity, BufferedImage.TYPE_INT_ARGB);
+            }
+            return (Graphics2D) image.getGraphics();
+        }
+
+    }
+
+    /**A frame in which one tile has changed, so one tile is redrawn into the buffer before it is drawn**/
+    @Benchmark
+    public void frame() throws Throwable {
+        Engine.rightClick(board, changedRow, changedColumn);
+        Engine.draw(renderer, board, camera, Engine.RUNNING);
+    }
+
+    /**A frame in which the game state has changed, so every tile is redrawn**/
+    @Benchmark
+    public void fullRedraw() throws Throwable {
+        gameState = gameState == Engine.RUNNING ? Engine.WINSTOPPED : Engine.RUNNING;
+        Engine.draw(renderer, board, camera, gameState);
+    }
+
+}
@@ -1,38 +1,90 @@
+import java.util.function.Consumer;
+
 /**
  * An AI that will attempt to play minesweeper
- * UNFINISHED
+ * It plays every move that it can be certain of, using a Solver that
+ * is kept for the board between turns so each turn only looks at what changed.
+ * When nothing is certain it opens the tile least likely to be a bomb
  */
-public final class AI {
+public class AI implements Strategy {
 
-    /**Private constructor so that AI cannot be instantiated except by itself**/
-    private AI(){ }
+    /**The solver for the board that was last played on**/
+    private Solver solver;
 
     /**
      * Method to play a turn in a given game
      * @param g the given game
      */
-    public static void playTurn(Game g){
-        Board b = g.getBoard();
-        Tile[][] tiles = b.getTiles();
-        for (int r = 0; r < tiles.length; r++) {
-            for (int c = 0; c < tiles[0].length; c++) {
-                Tile t = tiles[r][c];
-                if(t.isOpen() && t.getNumNeighboringBombs() == t.numNeighboringFlags(tiles,r,c)){
-                    b.leftClick(r,c);
-                    tiles = b.getTiles();
-                }
-                if(t.isOpen() && t.getNumNeighboringBombs()>0 && t.numNeighboringClosed(tiles, r, c) + t.numNeighboringFlags(tiles, r, c) == t.getNumNeighboringBombs()){
-                    for (int row = r-1; row < r+2; row++) {
-                        for (int col = c-1; col < c+2; col++) {
-                            b.aiRightClick(row, col);
-                            tiles = b.getTiles();
-                        }
-                    }
-                }
+    public void playTurn(Game g){
+        playTurn(g.getBoard(), g::applyMove);
+    }
 
+    /**
+     * Method to play a turn on a given board, which does not need to be drawn.
+     * Every move that can be deduced is played, until the game is over or no more can be.
+     * If no move could be deduced, the safest tile is opened instead
+     * @param b the given board
+     */
+    public void playTurn(Board b){
+        playTurn(b, move -> move.apply(b));
+    }
 
+    /**
+     * Plays a turn on a board, making each move with something that can do more than apply it
+     * @param b the given board
+     * @param mover makes a move on the board
+     */
+    private void playTurn(Board b, Consumer<Move> mover){
+        boolean moved = false;
+        Move move;
+        while(b.getGameState() == Board.RUNNING && (move = solverFor(b).nextMove()) != null){
+            mover.accept(move);
+            moved = true;
+        }
+        if(!moved && b.getGameState() == Board.RUNNING){
+            move = guess(b);
+            if(move != null){
+                mover.accept(move);
             }
         }
     }
 
+    /**
+     * Chooses the next move, which is a certain one if there is any and otherwise the safest guess
+     * @param b the board being played
+     * @return the move to make, or null if there are no closed tiles
+     */
+    public Move nextMove(Board b){
+        Move move = solverFor(b).nextMove();
+        return move != null ? move : guess(b);
+    }
+
+    /**
+     * Returns the solver for a board, making a new one if the board has changed since the last move
+     * @param b the board being played
+     * @return the solver
+     */
+    private Solver solverFor(Board b){
+        if(solver == null || solver.getBoard() != b){
+            if(solver != null){
+                solver.close();
+            }
+            solver = new Solver(b);
+        }
+        return solver;
+    }
+
+    /**
+     * Chooses the tile that is least likely to be a bomb
+     * @param b the board being played
+     * @return the move that opens that tile, or null if there are no closed tiles
+     */
+    private Move guess(Board b){
+        int safest = new MineProbabilities(b).getSafestTile();
+        if(safest < 0){
+            return null;
+        }
+        return new Move(safest / b.getColumns(), safest % b.getColumns(), false);
+    }
+
 }
@@ -0,0 +1,210 @@
+import processing.core.PApplet;
+
+/**
+ * The short effects drawn over the board: explosions, and flashes as tiles are revealed, flagged and
+ * won. Every effect lives in a fixed pool of slots, held as parallel arrays, so starting, drawing and
+ * ending effects allocates nothing. Effects are timed against the time given at the start of each
+ * frame, can be started with a delay so that many of them chain, and are dropped if the pool is full.
+ * Effects are placed on tiles rather than on the screen, so they follow the board as the camera moves
+ */
+public class Animations {
+
+    /**The types of effect**/
+    public static final int EXPLOSION = 0;
+    public static final int REVEAL = 1;
+    public static final int FLAG = 2;
+    public static final int WIN = 3;
+
+    /**How long each type of effect lasts, in milliseconds**/
+    private static final int[] DURATIONS = {1000, 150, 250, 400};
+
+    /**The most effects that can be playing or waiting to play at once**/
+    private static final int CAPACITY = 1024;
+
+    /**The PApplet the effects are drawn with**/
+    private PApplet p;
+
+    /**The resized images, which explosions are drawn from**/
+    private SpriteCache sprites;
+
+    /**The type, tile and start time of each effect. The first count slots are in use**/
+    private int[] types;
+    private int[] rows;
+    private int[] columns;
+    private int[] starts;
+
+    /**The number of slots in use**/
+    private int count;
+
+    /**The time of the frame being drawn**/
+    private int now;
+
+    /**
+     * The constructor for an empty pool of effects
+     * @param p the PApplet the effects are drawn with
+     * @param sprites the resized images, in which explosions are 3x3 tiles
+     */
+    public Animations(PApplet p, SpriteCache sprites){
+        this.p = p;
+        this.sprites = sprites;
+        types = new int[CAPACITY];
+        rows = new int[CAPACITY];
+        columns = new int[CAPACITY];
+        starts = new int[CAPACITY];
+    }
+
+    /**
+     * Sets the time that effects started and drawn in this frame are timed against
+     * @param now the time of the frame in milliseconds
+     */
+    public void beginFrame(int now){
+        this.now = now;
+    }
+
+    /**
+     * Starts an effect on a tile
+     * @param type EXPLOSION, REVEAL, FLAG or WIN
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @param delay how long after this frame the effect starts, in milliseconds
+     * @return false if the pool was full and the effect was dropped
+     */
+    public boolean add(int type, int row, int col, int delay){
+        if(count == CAPACITY){
+            return false;
+        }
+        types[count] = type;
+        rows[count] = row;
+        columns[count] = col;
+        starts[count] = now + delay;
+        count++;
+        return true;
+    }
+
+    /**
+     * Starts an effect on a tile if it is in view, delayed by its distance from another tile so that
+     * effects started on many tiles spread out from it
+     * @param type the type of effect
+     * @param i the index of the tile
+     * @param boardColumns the number of columns of the board
+     * @param camera the camera the board is seen through
+     * @param from the index of the tile the effects spread from
+     * @param stagger the delay per tile of distance, in milliseconds
+     */
+    public void addSpread(int type, int i, int boardColumns, Camera camera, int from, int stagger){
+        int r = i / boardColumns;
+        int c = i % boardColumns;
+        if(count < CAPACITY && isInView(camera, r, c)){
+            add(type, r, c, Math.max(Math.abs(r - from / boardColumns), Math.abs(c - from % boardColumns)) * stagger);
+        }
+    }
+
+    /**
+     * Starts an effect on every bomb in view, nearest a tile first, each delayed by its distance from the tile
+     * so that they go off in a chain. The rings of tiles around the tile are looked at in turn, so if the pool
+     * fills it is the farthest bombs that are left out
+     * @param type the type of effect
+     * @param board the board
+     * @param camera the camera the board is seen through
+     * @param from the index of the tile the chain starts at
+     * @param stagger the delay per ring, in milliseconds
+     */
+    public void addBombs(int type, Board board, Camera camera, int from, int stagger){
+        TileStore tiles = board.getTiles();
+        int boardColumns = board.getColumns();
+        int fromRow = from / boardColumns;
+        int fromCol = from % boardColumns;
+        int firstRow = Math.max(0, camera.getFirstRow());
+        int endRow = Math.min(board.getRows(), camera.getEndRow());
+        int firstCol = Math.max(0, camera.getFirstColumn());
+        int endCol = Math.min(boardColumns, camera.getEndColumn());
+        int maxDistance = Math.max(Math.max(Math.abs(fromRow - firstRow), Math.abs(endRow - 1 - fromRow)),
+                Math.max(Math.abs(fromCol - firstCol), Math.abs(endCol - 1 - fromCol)));
+        for (int d = 0; d <= maxDistance && count < CAPACITY; d++) {
+            int rowMin = Math.max(firstRow, fromRow - d);
+            int rowMax = Math.min(endRow - 1, fromRow + d);
+            for (int r = rowMin; r <= rowMax; r++) {
+                //rows at the top and bottom of the ring are whole, the rest only have their two ends
+                int step = r == fromRow - d || r == fromRow + d ? 1 : Math.max(1, 2 * d);
+                for (int c = fromCol - d; c <= fromCol + d; c += step) {
+                    if(c >= firstCol && c < endCol && tiles.checkIfBomb(r * boardColumns + c)){
+                        add(type, r, c, d * stagger);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if a tile is in the camera's view
+     * @param camera the camera
+     * @param r the row of the tile
+     * @param c the column of the tile
+     * @return if the tile can be seen
+     */
+    private static boolean isInView(Camera camera, int r, int c){
+        return r >= camera.getFirstRow() && r < camera.getEndRow() && c >= camera.getFirstColumn() && c < camera.getEndColumn();
+    }
+
+    /**
+     * Draws every effect that has started, and ends those that are over by moving the last slot into theirs
+     * @param camera the camera the board is seen through
+     */
+    public void draw(Camera camera){
+        int tileSize = camera.getTileSize();
+        for (int a = count - 1; a >= 0; a--) {
+            int age = now - starts[a];
+            if(age < 0){
+                continue;
+            }
+            int type = types[a];
+            if(age >= DURATIONS[type]){
+                count--;
+                types[a] = types[count];
+                rows[a] = rows[count];
+                columns[a] = columns[count];
+                starts[a] = starts[count];
+                continue;
+            }
+            int x = camera.screenX(columns[a]);
+            int y = camera.screenY(rows[a]);
+            int fade = 255 - 255 * age / DURATIONS[type];
+            if(type == EXPLOSION){
+                sprites.draw(p.g, 19 + age / 250, x - tileSize, y - tileSize);
+            }else if(type == REVEAL){
+                p.noStroke();
+                p.fill(255, fade * 3 / 5);
+                p.rect(x, y, tileSize, tileSize);
+            }else if(type == FLAG){
+                int grow = tileSize / 2 * fade / 255;
+                p.noFill();
+                p.stroke(255, 255, 0, fade);
+                p.strokeWeight(2);
+                p.rect(x - grow, y - grow, tileSize + 2 * grow, tileSize + 2 * grow);
+            }else if(type == WIN){
+                p.noStroke();
+                p.fill(0, 255, 0, fade * 3 / 4);
+                p.rect(x, y, tileSize, tileSize);
+            }
+        }
+        p.noStroke();
+        p.strokeWeight(1);
+        p.fill(255);
+    }
+
+    /**
+     * Returns whether no effect is playing or waiting to play
+     * @return true if there are no effects
+     */
+    public boolean isEmpty(){
+        return count == 0;
+    }
+
+    /**
+     * Ends every effect
+     */
+    public void clear(){
+        count = 0;
+    }
+
+}
@@ -0,0 +1,94 @@
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Plays a game with the AI on a thread of its own, so that choosing moves never holds up drawing.
+ * The AI plays a copy of the board and hands each move it makes over on a queue, and the game takes
+ * moves off the queue between frames and makes them on the real board, which has the same bombs
+ * and so ends up just like the copy. The AI stays at most MAXAHEAD moves ahead of the game
+ */
+public class Autoplay implements Runnable {
+
+    /**The most moves the AI chooses before the game has taken them**/
+    private static final int MAXAHEAD = 256;
+
+    /**The AI's copy of the board, which only the AI's thread touches once it starts**/
+    private Board board;
+
+    /**The moves chosen and not yet taken**/
+    private ArrayBlockingQueue<Move> moves;
+
+    /**The thread the AI runs on**/
+    private Thread thread;
+
+    /**True once the game has stopped the AI**/
+    private volatile boolean isStopped;
+
+    /**True once the AI has no more moves to choose**/
+    private volatile boolean isFinished;
+
+    /**
+     * The constructor for autoplay on a copy of a board
+     * @param copy the board to play, which must not be changed by anything else once autoplay starts
+     */
+    public Autoplay(Board copy){
+        this.board = copy;
+        this.moves = new ArrayBlockingQueue<>(MAXAHEAD);
+    }
+
+    /**
+     * Starts the AI on a daemon thread
+     */
+    public void start(){
+        thread = new Thread(this, "Autoplay");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the AI. Any moves it chose that have not been taken are thrown away, so nothing more is played
+     * even if the AI is partway through choosing a move
+     */
+    public void stop(){
+        isStopped = true;
+        moves.clear();
+        thread.interrupt();
+    }
+
+    /**
+     * Plays the copy of the board until the game is over, the AI has nothing left to do or it is stopped
+     */
+    public void run(){
+        AI ai = new AI();
+        try {
+            while(!isStopped && board.getGameState() == Board.RUNNING){
+                Move move = ai.nextMove(board);
+                if(move == null){
+                    break;
+                }
+                move.apply(board);
+                moves.put(move);
+            }
+        } catch (InterruptedException e) {
+            //stopped while waiting for the game to take moves
+        } finally {
+            isFinished = true;
+        }
+    }
+
+    /**
+     * Takes the next move the AI has chosen, without waiting for one
+     * @return the move, or null if none is ready or autoplay has been stopped
+     */
+    public Move poll(){
+        return isStopped ? null : moves.poll();
+    }
+
+    /**
+     * Returns whether every move the AI will choose has been taken
+     * @return true if there is nothing left to play
+     */
+    public boolean isDone(){
+        return isFinished && moves.isEmpty();
+    }
+
+}
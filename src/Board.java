@@ -1,14 +1,29 @@
-import processing.core.PApplet;
-import processing.core.PImage;
+import java.util.SplittableRandom;
 
-/**The class that is used to handle everything in the board, mainly tiles**/
+/**The class that is used to handle everything in the board, mainly tiles.
+ * The board holds only the rules of the game and never draws, so it can be run
+ * without processing; see BoardRenderer for drawing**/
 public class Board {
 
-    /**The PApplet that the board can use to draw**/
-    private PApplet p;
+    /**The states that getGameState can return**/
+    public static final int RUNNING = 1;
+    public static final int LOSSSTOPPED = 2;
+    public static final int WINSTOPPED = 3;
 
-    /**The images that are used in the game**/
-    private PImage[] images;
+    /**The clock used to time the game**/
+    private Clock clock;
+
+    /**The time the first click was made**/
+    private long startTime;
+
+    /**True once the first click has been made and startTime is set**/
+    private boolean isTimerStarted;
+
+    /**The time the game was won or lost**/
+    private long endTime;
+
+    /**True once the game has been won or lost and endTime is set**/
+    private boolean isTimerStopped;
 
     /**The number of rows in the board**/
     private int rows;
@@ -19,234 +34,321 @@ public class Board {
     /**The number of bombs that the board has**/
     private int numBombs;
 
+    /**The seed that the bombs are placed with, so that the same seed and first click always give the same board**/
+    private long seed;
+
+    /**True if the first click should open an area, with no bombs next to it**/
+    private boolean isSafeOpening;
+
+    /**The longest to search for a board that needs no guessing, or 0 if any board will do**/
+    private long noGuessBudgetMillis;
+
     /**True if placeBombs has been called, otherwise false to indicate that bombs should still be placed on the first click**/
     private boolean areBombsSet;
 
-    /**The two dimensional array of tiles that
+    /**The number of tiles revealed so far by the click being played**/
+    private int numRevealed;
+
+    /**The compact store of tiles that
      * "is" the board **/
-    private Tile[][] tiles;
+    private TileStore tiles;
+
+    /**
+     * The constructor for a board with a random seed that is timed by the system clock
+     * @param rows rows/ aka height of the board
+     * @param columns columns/ aka width of the board
+     * @param numBombs the number of bombs in this board
+     */
+    public Board(int rows, int columns, int numBombs){
+        this(rows, columns, numBombs, new SplittableRandom().nextLong(), Clock.SYSTEM);
+    }
+
+    /**
+     * The constructor for a board with a random seed
+     * @param rows rows/ aka height of the board
+     * @param columns columns/ aka width of the board
+     * @param numBombs the number of bombs in this board
+     * @param clock the clock used to time the game
+     */
+    public Board(int rows, int columns, int numBombs, Clock clock){
+        this(rows, columns, numBombs, new SplittableRandom().nextLong(), clock);
+    }
 
     /**
      * The constructor that sets all the instance variables in a board
      * @param rows rows/ aka height of the board
      * @param columns columns/ aka width of the board
      * @param numBombs the number of bombs in this board
-     * @param imgs the images that can be drawn
-     * @param p PApplet that the board gets passed so it can draw
+     * @param seed the seed that the bombs are placed with
+     * @param clock the clock used to time the game
      */
-    public Board(int rows, int columns, int numBombs, PApplet p, PImage[] imgs){
+    public Board(int rows, int columns, int numBombs, long seed, Clock clock){
         this.rows = rows;
         this.columns = columns;
         this.numBombs = numBombs;
+        this.seed = seed;
         areBombsSet = false;
-        tiles = new Tile[rows][columns];
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < columns; c++) {
-                tiles[r][c] = new Tile();
-            }
+        isSafeOpening = false;
+        noGuessBudgetMillis = 0;
+        tiles = new TileStore(rows, columns);
+        this.clock = clock;
+        isTimerStarted = false;
+        isTimerStopped = false;
+    }
+
+    /**
+     * Returns a copy of the board, with the same bombs and tiles, which can be played without changing this one
+     * @return the copy, timed by the same clock
+     */
+    public Board copy(){
+        Board copy = new Board(rows, columns, numBombs, seed, clock);
+        copy.tiles = tiles.copy();
+        copy.areBombsSet = areBombsSet;
+        copy.isSafeOpening = isSafeOpening;
+        copy.noGuessBudgetMillis = noGuessBudgetMillis;
+        copy.startTime = startTime;
+        copy.isTimerStarted = isTimerStarted;
+        copy.endTime = endTime;
+        copy.isTimerStopped = isTimerStopped;
+        return copy;
+    }
+
+    /**
+     * Sets whether the first click always opens an area, so that no bomb is placed next to it either.
+     * It only has an effect before the first click, and only if there is room for the bombs elsewhere
+     * @param safeOpening true if the first click should have no neighboring bombs
+     */
+    public void setSafeOpening(boolean safeOpening){
+        this.isSafeOpening = safeOpening;
+    }
+
+    /**
+     * Sets whether the board should be one that can be solved from the first click without guessing.
+     * When the first click is made, a NoGuessGenerator searches for a seed that gives such a board, and the
+     * board is made from that seed. It only has an effect before the first click
+     * @param budgetMillis the longest the search may take, after which the board may need a guess, or 0 to turn it off
+     */
+    public void setNoGuess(long budgetMillis){
+        this.noGuessBudgetMillis = budgetMillis;
+        if(budgetMillis > 0){
+            isSafeOpening = true;
         }
-        this.p = p;
-        this.images = imgs;
     }
 
     /**
-     * Places bombs in the board, to be used after the first click to ensure no bomb is hit on the first click
+     * Sets the seed that the bombs are placed with, which is used as it is rather than searched from
+     * for a board that needs no guessing. It only has an effect before the first click, and is how a
+     * replay places the same bombs that were placed when the game was played
+     * @param seed the seed
+     */
+    public void setSeed(long seed){
+        if(!areBombsSet){
+            this.seed = seed;
+            this.noGuessBudgetMillis = 0;
+        }
+    }
+
+    /**
+     * Places bombs in the board, to be used after the first click to ensure no bomb is hit on the first click.
+     * The bombs are a random sample of the other tiles chosen with Floyd's algorithm, which takes one
+     * random number per bomb however dense the board is, and the sample depends only on the seed and
+     * the tiles avoided. It is not private so that a SharedBoard can place the same bombs as a Board
      * @param rowToAvoid the row to avoid placing a bomb
      * @param columnToAvoid the column to avoid placing a bomb
      */
-    private void placeBombs(int rowToAvoid, int columnToAvoid){
-        int bombsPlaced = 0;
-        while(bombsPlaced < numBombs){
-            int rPlace = (int)(((double)rows)*Math.random());
-            int cPlace = (int)(((double)columns)*Math.random());
-            if(!tiles[rPlace][cPlace].checkIfBomb() && (rPlace != rowToAvoid || cPlace != columnToAvoid)){
-                tiles[rPlace][cPlace].setAsBomb();
-                bombsPlaced++;
+    void placeBombs(int rowToAvoid, int columnToAvoid){
+        if(noGuessBudgetMillis > 0){
+            seed = NoGuessGenerator.findSeed(rows, columns, numBombs, rowToAvoid, columnToAvoid, seed, noGuessBudgetMillis);
+        }
+
+        //the tiles to avoid, in order, which are the 3x3 square around the click if it should open an area
+        IntList avoid = new IntList(9);
+        int startR = Math.max(rowToAvoid-1,0);
+        int endR = Math.min(rowToAvoid+2, rows);
+        int startC = Math.max(columnToAvoid-1,0);
+        int endC = Math.min(columnToAvoid+2, columns);
+        if(!isSafeOpening || rows*columns - (endR-startR)*(endC-startC) < numBombs){
+            startR = rowToAvoid;
+            endR = rowToAvoid+1;
+            startC = columnToAvoid;
+            endC = columnToAvoid+1;
+        }
+        for (int r = startR; r < endR; r++) {
+            for (int c = startC; c < endC; c++) {
+                avoid.add(r*columns + c);
             }
         }
-        areBombsSet = true;
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < columns; c++) {
-                tiles[r][c].countNeighboringBombs(tiles, r, c);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        //every tile that is not avoided is a spot, and the spots are numbered in order
+        int spots = rows*columns - avoid.size();
+        int bombs = Math.min(numBombs, spots);
+        for (int j = spots - bombs; j < spots; j++) {
+            int i = spotToTile(random.nextInt(j + 1), avoid);
+            if(tiles.checkIfBomb(i)){
+                i = spotToTile(j, avoid);
             }
+            tiles.setAsBomb(i);
         }
+        areBombsSet = true;
+        tiles.countNeighboringBombs();
     }
 
     /**
-     * The method that draws the board, which will loop through each tile in the
-     * 2d array in order to draw each tile
-     * @param x the x coordinate to begin at
-     * @param y the y coordinate to begin at
-     * @param tSize the tile size to use for changing the draw locations
-     * @param gameState the current state of the game, used to slightly alter functionality
-     * @return an explosion, if one was created that frame
-     */
-    public Explosion draw(int x, int y, int tSize, int gameState){
-        int explosionX = 0;
-        int explosionY = 0;
-
-        final int RUNNING = 1;
-        final int LOSSSTOPPED = 2;
-        final int WINSTOPPED = 3;
-
-        p.fill(255);
-        p.textSize(20);
-
-        int tileSize = tSize;
-        int drawX = x;
-        int drawY = y;
-        for (Tile[] row : tiles) {
-            for (Tile t: row) {
-                PImage tileImage = images[9];
-                if(gameState==LOSSSTOPPED){
-                    if(t.checkIfBomb()){
-                        tileImage = images[12];
-                    }
-                }
-                if(t.isHovered()){
-                    tileImage = images[0];
-                }
-                if(t.isOpen()){
-                    if(t.checkIfBomb()){
-                        tileImage = images[11];
-                        explosionX = drawX - tileSize;
-                        explosionY = drawY - tileSize;
-                    }else{
-                        tileImage = images[t.getNumNeighboringBombs()];
-                    }
-                }
-                if(t.isFlagged()){
-                    tileImage = images[10];
-                    if(gameState==LOSSSTOPPED && !t.checkIfBomb()){
-                        tileImage = images[18];
-                    }
-                }
-                if(t.isQuestioned()){
-                    tileImage = images[17];
-                }
-                if(gameState==WINSTOPPED){
-                    if(t.checkIfBomb()){
-                        tileImage = images[10];
-                        while(!t.isFlagged()){
-                            t.toggleState();
-                        }
-                    }
-                }
-
-                p.image(tileImage,drawX,drawY,tileSize,tileSize);
-
-                drawX += tileSize;
+     * Returns the tile that a spot is, skipping over the tiles that are avoided
+     * @param spot the number of the spot
+     * @param avoid the indices of the avoided tiles, in order
+     * @return the index of the tile
+     */
+    private static int spotToTile(int spot, IntList avoid){
+        int i = spot;
+        for (int a = 0; a < avoid.size(); a++) {
+            if(i >= avoid.get(a)){
+                i++;
             }
-            drawX = x;
-            drawY += tileSize;
         }
-        if(gameState == LOSSSTOPPED){
-            return new Explosion(explosionX,explosionY,tileSize*3,p,images);
-        }
-        return null;
+        return i;
     }
 
     /**
-     * Counts the number of flagged tiles on the board
+     * Returns the number of flagged tiles on the board, which the store keeps count of
      * @return the number of flags
      */
     public int getFlagCount(){
-        int f = 0;
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < columns; c++) {
-                if(tiles[r][c].isFlagged()){
-                    f++;
-                }
-            }
-        }
-        return f;
+        return tiles.getFlagCount();
     }
 
     /**
      * Method run on left click that will attempt to left click a tile
      * @param r row of click
      * @param c column of click
+     * @return the number of tiles that the click revealed
      */
-    public void leftClick(int r, int c){
+    public int leftClick(int r, int c){
+        return leftClick(r, c, null);
+    }
+
+    /**
+     * Method run on left click that will attempt to left click a tile, telling a listener about each tile
+     * it reveals as it goes, so that a caller that needs the tiles need not have them all gathered in a list
+     * @param r row of click
+     * @param c column of click
+     * @param revealed told the index (row * columns + column) of each tile the click reveals, or null
+     * @return the number of tiles that the click revealed
+     */
+    public int leftClick(int r, int c, TileListener revealed){
+        numRevealed = 0;
         if(r >= 0 && r < rows && c>= 0 && c < columns) {
-            if(!tiles[r][c].isFlagged()) {
+            startTimer();
+            if(!tiles.isFlagged(r*columns + c)) {
                 if (!areBombsSet) {
                     placeBombs(r, c);
                 }
-                revealTiles(r, c);
+                revealTiles(r, c, revealed);
             }
         }
+        return numRevealed;
     }
 
     /**
-     * Method run on left click hover that will attempt to hover over a tile
+     * Method run on left click hover that will attempt to hover over a tile, moving the hover
+     * off of whichever tile was hovered before
      * @param r row of click
      * @param c column of click
      */
     public void hover(int r, int c){
         if(r >= 0 && r < rows && c>= 0 && c < columns) {
-            if(tiles[r][c].isClosed()) {
-                tiles[r][c].hover();
-            }
+            startTimer();
+            tiles.hover(r*columns + c);
+        }else{
+            tiles.unHover();
         }
     }
 
     /**
-     * Unhovers all hovered tiles
+     * Unhovers all hovered tiles. The board remembers which tile is hovered, so no other tile is looked at
      */
     public void unHoverAll(){
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < columns; c++) {
-                tiles[r][c].unHover();
-            }
-        }
+        tiles.unHover();
     }
 
     /**
      * reveals a certain tile, chains to other nearby tiles if there are no bombs nearby, or if clicked
-     * on a tile with the proper amount of nearby flags
+     * on a tile with the proper amount of nearby flags.
+     * The chain is followed a ring at a time, with a list of the tiles at the edge of the opened area and a
+     * list of the tiles of the next ring, rather than by recursion so that large open areas cannot overflow
+     * the call stack. Only the edge is held, so opening a huge area takes memory that grows with its
+     * outline and not its size. A tile is opened as it is added, so its open state marks it as
+     * visited and each tile is looked at a constant number of times
      * @param row the row of the tile to reveal
      * @param col the column of the tile to reveal
+     * @param revealed told the index of each newly revealed tile, or null
      */
-    private void revealTiles(int row, int col){
+    private void revealTiles(int row, int col, TileListener revealed){
 
-        final int NONE = 0;
-        final int LIMITED = 1;
-        final int FULL = 2;
-        int sweepType = NONE;
+        IntList toSweep = new IntList();
 
-        Tile t = tiles[row][col];
-        if(t.isOpen() && t.getNumNeighboringBombs() == t.numNeighboringFlags(tiles,row,col)){
-            sweepType = LIMITED;
+        int i = row*columns + col;
+        if(tiles.isOpen(i)){
+            if(tiles.getNumNeighboringBombs(i) == tiles.numNeighboringFlags(i) && tiles.numNeighboringClosed(i) > 0){
+                //chord: open every closed neighbor, chaining from any that have no bombs nearby
+                revealNeighbors(row, col, revealed, toSweep);
+            }
+        }else if(tiles.isClosed(i)){
+            revealTile(i, revealed, toSweep);
         }
 
-        tiles[row][col].reveal();
-
-        if (t.getNumNeighboringBombs() == 0){
-            sweepType = FULL;
+        IntList nextRing = new IntList();
+        while(!toSweep.isEmpty()){
+            for (int k = 0; k < toSweep.size(); k++) {
+                int next = toSweep.get(k);
+                revealNeighbors(next / columns, next % columns, revealed, nextRing);
+            }
+            IntList swept = toSweep;
+            toSweep = nextRing;
+            nextRing = swept;
+            nextRing.clear();
         }
 
-        if(sweepType != NONE){
-            int startSweepR = Math.max(row-1,0);
-            int endSweepR = Math.min(row+2, rows);
-            int startSweepC = Math.max(col-1,0);
-            int endSweepC = Math.min(col+2, columns);
-            for (int r = startSweepR; r < endSweepR; r++) {
-                for (int c = startSweepC; c < endSweepC; c++) {
-                    if(tiles[r][c].isClosed()) {
-                        if(sweepType == FULL){
-                            revealTiles(r, c);
-                        }else{
-                            tiles[r][c].reveal();
-                            if(tiles[r][c].getNumNeighboringBombs()==0){
-                                revealTiles(r,c);
-                            }
-                        }
-                    }
+    }
+
+    /**
+     * Reveals every closed tile in the 8 tile ring around a tile
+     * @param row the row of the center tile
+     * @param col the column of the center tile
+     * @param revealed told the index of each newly revealed tile, or null
+     * @param toSweep the list that tiles with no neighboring bombs are added to
+     */
+    private void revealNeighbors(int row, int col, TileListener revealed, IntList toSweep){
+        int startSweepR = Math.max(row-1,0);
+        int endSweepR = Math.min(row+2, rows);
+        int startSweepC = Math.max(col-1,0);
+        int endSweepC = Math.min(col+2, columns);
+        for (int r = startSweepR; r < endSweepR; r++) {
+            for (int c = startSweepC; c < endSweepC; c++) {
+                int i = r*columns + c;
+                if(tiles.isClosed(i)) {
+                    revealTile(i, revealed, toSweep);
                 }
             }
         }
+    }
 
+    /**
+     * Reveals a single closed tile, and adds it to be swept if it has no neighboring bombs
+     * @param i the index of the tile
+     * @param revealed told the index of the tile, or null
+     * @param toSweep the list that the tile is added to if it has no neighboring bombs
+     */
+    private void revealTile(int i, TileListener revealed, IntList toSweep){
+        tiles.reveal(i);
+        numRevealed++;
+        if(revealed != null){
+            revealed.tileChanged(i);
+        }
+        if(tiles.getNumNeighboringBombs(i) == 0 && !tiles.checkIfBomb(i)){
+            toSweep.add(i);
+        }
     }
 
     /**
@@ -256,7 +358,8 @@ public class Board {
      */
     public void rightClick(int r, int c){
         if(r >= 0 && r < rows && c>= 0 && c < columns) {
-            tiles[r][c].toggleState();
+            startTimer();
+            tiles.toggleState(r*columns + c);
         }
     }
 
@@ -267,48 +370,160 @@ public class Board {
      */
     public void aiRightClick(int r, int c){
         if(r >= 0 && r < rows && c>= 0 && c < columns) {
-            tiles[r][c].flag();
+            tiles.flag(r*columns + c);
+        }
+    }
+
+    /**
+     * Starts timing the game if it has not been started yet
+     */
+    private void startTimer(){
+        if(!isTimerStarted){
+            startTime = clock.millis();
+            isTimerStarted = true;
+        }
+    }
+
+    /**
+     * Carries on a saved game, with its bombs and tiles already loaded into the store
+     * @param bombsSet true if the bombs were placed before the game was saved
+     * @param elapsedMillis how long the game had been played for
+     * @param timerStarted true if the first click had been made
+     * @param timerStopped true if the game had been won or lost
+     */
+    public void resume(boolean bombsSet, long elapsedMillis, boolean timerStarted, boolean timerStopped){
+        areBombsSet = bombsSet;
+        isTimerStarted = timerStarted;
+        isTimerStopped = timerStopped;
+        startTime = clock.millis() - elapsedMillis;
+        endTime = startTime + elapsedMillis;
+    }
+
+    /**
+     * Returns how long the game has been played for, which stops counting once the game is won or lost
+     * @return the time since the first click in milliseconds, or 0 if there has been no click
+     */
+    public long getElapsedMillis(){
+        if(!isTimerStarted){
+            return 0;
+        }
+        if(isTimerStopped){
+            return endTime - startTime;
         }
+        return clock.millis() - startTime;
     }
 
     /**
-     * Method to return the tiles for use in the AI
+     * Method to return the store of tiles, for callers that scan the whole board
      * @return the tiles on the board
      */
-    public Tile[][] getTiles(){
+    public TileStore getTiles(){
         return tiles;
     }
 
     /**
-     * Returns the game state after checking all of the tiles to see if the game has been lost or won
+     * Adds a listener that will be told whenever a tile on the board changes
+     * @param listener the listener to add
+     */
+    public void addTileListener(TileListener listener){
+        tiles.addTileListener(listener);
+    }
+
+    /**
+     * Removes a listener so that it is no longer told about changes to the board
+     * @param listener the listener to remove
+     */
+    public void removeTileListener(TileListener listener){
+        tiles.removeTileListener(listener);
+    }
+
+    /**
+     * Method to return a view of one tile for use in the AI
+     * @param r row of the tile
+     * @param c column of the tile
+     * @return the tile
+     */
+    public Tile getTile(int r, int c){
+        return new Tile(tiles, r, c);
+    }
+
+    /**
+     * Returns the game state from the store's counts of opened tiles, so it does not need to look at any tile.
+     * The first time the game is seen to be over the timer is stopped, and on a win every bomb is flagged
      * @return the state of the game
      */
     public int getGameState(){
 
-        final int RUNNING = 1;
-        final int LOSSSTOPPED = 2;
-        final int WINSTOPPED = 3;
-
-        int openTiles = 0;
-
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < columns; c++) {
-                Tile t = tiles[r][c];
-                if(t.isOpen()){
-                    if(t.checkIfBomb()){
-                        return LOSSSTOPPED;
-                    }else{
-                        openTiles++;
-                    }
-                }
-            }
+        int state = RUNNING;
+        if(tiles.isBombOpen()){
+            state = LOSSSTOPPED;
+        }else if((rows*columns)-tiles.getOpenSafeCount() == numBombs){
+            state = WINSTOPPED;
         }
 
-        if((rows*columns)-openTiles == numBombs){
-            return WINSTOPPED;
+        if(state != RUNNING && !isTimerStopped){
+            endTime = clock.millis();
+            isTimerStopped = true;
+            if(state == WINSTOPPED){
+                tiles.flagAllBombs();
+            }
         }
 
-        return RUNNING;
+        return state;
     }
 
+    /**
+     * Returns the number of rows in the board
+     * @return the height of the board in tiles
+     */
+    public int getRows(){ return rows; }
+
+    /**
+     * Returns the number of columns in the board
+     * @return the width of the board in tiles
+     */
+    public int getColumns(){ return columns; }
+
+    /**
+     * Returns the number of bombs in the board
+     * @return the number of bombs
+     */
+    public int getNumBombs(){ return numBombs; }
+
+    /**
+     * Returns the seed that the bombs are placed with
+     * @return the seed
+     */
+    public long getSeed(){ return seed; }
+
+    /**
+     * Returns whether the bombs have been placed, which they are on the first click
+     * @return true if the bombs are set
+     */
+    public boolean areBombsSet(){ return areBombsSet; }
+
+    /**
+     * Returns whether the first click opens an area
+     * @return true if the first click has no neighboring bombs
+     */
+    public boolean isSafeOpening(){ return isSafeOpening; }
+
+    /**
+     * Returns the longest to search for a board that needs no guessing
+     * @return the budget in milliseconds, or 0 if any board will do
+     */
+    public long getNoGuessBudgetMillis(){ return noGuessBudgetMillis; }
+
+    /**
+     * Returns whether the timer has started, which it does on the first click or hover
+     * @return true if the timer has started
+     */
+    public boolean isTimerStarted(){ return isTimerStarted; }
+
+    /**
+     * Returns whether the timer has stopped, which it does once the game is seen to be won or lost
+     * @return true if the timer has stopped
+     */
+    public boolean isTimerStopped(){ return isTimerStopped; }
+
 }
@@ -0,0 +1,206 @@
+import processing.core.PApplet;
+import processing.core.PGraphics;
+
+/**The class that is used to draw a board with processing.
+ * The part of the board in the camera's view is kept drawn in an offscreen buffer the size of the view,
+ * and only the tiles that the board says have changed are redrawn into it, so a frame costs one copy of
+ * the buffer. When the camera moves, only the tiles in view are redrawn, so the cost of a frame depends
+ * on the size of the screen and not of the board**/
+public class BoardRenderer implements TileListener {
+
+    /**The PApplet that the renderer can use to draw**/
+    private PApplet p;
+
+    /**The resized images that are used in the game**/
+    private SpriteCache sprites;
+
+    /**The offscreen buffer that holds the drawn board**/
+    private PGraphics buffer;
+
+    /**The board that is drawn in the buffer**/
+    private Board drawnBoard;
+
+    /**The tile size that the buffer was drawn at**/
+    private int drawnTileSize;
+
+    /**The version of the sprite atlas that the buffer was drawn from**/
+    private int drawnSpriteVersion;
+
+    /**The pixel of the board at the top left of the buffer when it was drawn**/
+    private int drawnOffsetX;
+    private int drawnOffsetY;
+
+    /**The tiles that were in view when the buffer was drawn**/
+    private int firstRow;
+    private int endRow;
+    private int firstColumn;
+    private int endColumn;
+
+    /**The game state that the buffer was drawn in**/
+    private int drawnGameState;
+
+    /**The indices of the tiles that have changed since the buffer was drawn**/
+    private IntList dirtyTiles;
+
+    /**True if every tile needs to be redrawn**/
+    private boolean isAllDirty;
+
+    /**The number of tiles redrawn into the buffer by the last draw**/
+    private int tilesDrawn;
+
+    /**
+     * The constructor that sets all the instance variables in a board renderer
+     * @param p PApplet that the renderer gets passed so it can draw
+     * @param sprites the resized images that can be drawn
+     */
+    public BoardRenderer(PApplet p, SpriteCache sprites){
+        this.p = p;
+        this.sprites = sprites;
+        this.dirtyTiles = new IntList();
+        this.isAllDirty = true;
+    }
+
+    /**
+     * Marks a tile of the drawn board as needing to be redrawn
+     * @param i the index of the tile that changed
+     */
+    public void tileChanged(int i){
+        if(!isAllDirty){
+            dirtyTiles.add(i);
+            if(dirtyTiles.size() > (endRow - firstRow) * (endColumn - firstColumn) / 2){
+                isAllDirty = true;
+                dirtyTiles.clear();
+            }
+        }
+    }
+
+    /**
+     * The method that draws the board. Any tiles in view that have changed are drawn into the
+     * buffer, then the buffer is drawn to the screen
+     * @param board the board to draw
+     * @param camera the camera the board is seen through, whose tile size the sprites must be cached at
+     * @param gameState the current state of the game, used to slightly alter functionality
+     */
+    public void draw(Board board, Camera camera, int gameState){
+        p.fill(255);
+        p.textSize(20);
+
+        if(board != drawnBoard){
+            if(drawnBoard != null){
+                drawnBoard.removeTileListener(this);
+            }
+            board.addTileListener(this);
+            drawnBoard = board;
+            isAllDirty = true;
+        }
+        int width = camera.getViewWidth();
+        int height = camera.getViewHeight();
+        if(buffer == null || buffer.width != width || buffer.height != height){
+            buffer = p.createGraphics(width, height);
+            isAllDirty = true;
+        }
+        if(drawnTileSize != camera.getTileSize() || drawnOffsetX != camera.getOffsetX() || drawnOffsetY != camera.getOffsetY()){
+            drawnTileSize = camera.getTileSize();
+            drawnOffsetX = camera.getOffsetX();
+            drawnOffsetY = camera.getOffsetY();
+            isAllDirty = true;
+        }
+        firstRow = Math.max(0, camera.getFirstRow());
+        endRow = Math.min(board.getRows(), camera.getEndRow());
+        firstColumn = Math.max(0, camera.getFirstColumn());
+        endColumn = Math.min(board.getColumns(), camera.getEndColumn());
+        if(gameState != drawnGameState){
+            drawnGameState = gameState;
+            isAllDirty = true;
+        }
+        //tiles drawn scaled while zooming are drawn again once the sprites are resized
+        if(sprites.getVersion() != drawnSpriteVersion){
+            drawnSpriteVersion = sprites.getVersion();
+            isAllDirty = true;
+        }
+
+        tilesDrawn = 0;
+        if(isAllDirty || !dirtyTiles.isEmpty()){
+            buffer.beginDraw();
+            buffer.noStroke();
+            if(isAllDirty){
+                buffer.clear();
+                for (int r = firstRow; r < endRow; r++) {
+                    for (int c = firstColumn; c < endColumn; c++) {
+                        drawTile(board.getTiles(), r * board.getColumns() + c, gameState);
+                    }
+                }
+                tilesDrawn = Math.max(0, endRow - firstRow) * Math.max(0, endColumn - firstColumn);
+            }else{
+                for (int d = 0; d < dirtyTiles.size(); d++) {
+                    int i = dirtyTiles.get(d);
+                    int r = i / board.getColumns();
+                    int c = i % board.getColumns();
+                    if(r >= firstRow && r < endRow && c >= firstColumn && c < endColumn){
+                        drawTile(board.getTiles(), i, gameState);
+                        tilesDrawn++;
+                    }
+                }
+            }
+            buffer.endDraw();
+            isAllDirty = false;
+            dirtyTiles.clear();
+        }
+
+        p.image(buffer, camera.getViewX(), camera.getViewY());
+    }
+
+    /**
+     * Returns the number of tiles that the last draw redrew into the buffer
+     * @return the number of tiles drawn
+     */
+    public int getTilesDrawn(){
+        return tilesDrawn;
+    }
+
+    /**
+     * Draws one tile into the buffer, over whatever was drawn there before
+     * @param tiles the tiles of the board
+     * @param i the index of the tile to draw
+     * @param gameState the current state of the game, used to slightly alter functionality
+     */
+    private void drawTile(TileStore tiles, int i, int gameState){
+        int tileImage = 9;
+        if(gameState==Board.LOSSSTOPPED){
+            if(tiles.checkIfBomb(i)){
+                tileImage = 12;
+            }
+        }
+        if(tiles.isHovered(i)){
+            tileImage = 0;
+        }
+        if(tiles.isOpen(i)){
+            if(tiles.checkIfBomb(i)){
+                tileImage = 11;
+            }else{
+                tileImage = tiles.getNumNeighboringBombs(i);
+            }
+        }
+        if(tiles.isFlagged(i)){
+            tileImage = 10;
+            if(gameState==Board.LOSSSTOPPED && !tiles.checkIfBomb(i)){
+                tileImage = 18;
+            }
+        }
+        if(tiles.isQuestioned(i)){
+            tileImage = 17;
+        }
+        if(gameState==Board.WINSTOPPED){
+            if(tiles.checkIfBomb(i)){
+                tileImage = 10;
+            }
+        }
+
+        int drawX = (i % tiles.getColumns()) * drawnTileSize - drawnOffsetX;
+        int drawY = (i / tiles.getColumns()) * drawnTileSize - drawnOffsetY;
+        buffer.fill(0);
+        buffer.rect(drawX, drawY, drawnTileSize, drawnTileSize);
+        sprites.draw(buffer, tileImage, drawX, drawY);
+    }
+
+}
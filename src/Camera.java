@@ -0,0 +1,236 @@
+/**
+ * The camera that a board is seen through. The camera looks at an area of the screen, the viewport,
+ * and knows how big tiles are drawn and which pixel of the board is at the viewport's top left.
+ * It turns screen coordinates into tiles and tiles into screen coordinates, so drawing and clicking
+ * agree however the board is panned and zoomed, and it says which tiles are in view so that only
+ * those need to be drawn
+ */
+public class Camera {
+
+    /**The smallest tile size that zooming out goes to**/
+    public static final int MINTILESIZE = 8;
+
+    /**The largest tile size that zooming in goes to**/
+    public static final int MAXTILESIZE = 512;
+
+    /**How much one step of zoom changes the tile size by**/
+    private static final double ZOOMSTEP = 1.1;
+
+    /**The area of the screen the board is seen in**/
+    private int viewX;
+    private int viewY;
+    private int viewWidth;
+    private int viewHeight;
+
+    /**The number of rows and columns of the board, or 0 if the board has no edges**/
+    private int rows;
+    private int columns;
+
+    /**The size tiles are drawn at**/
+    private int tileSize;
+
+    /**The pixel of the board, counted from the top left of tile 0,0, that is at the top left of the viewport**/
+    private int offsetX;
+    private int offsetY;
+
+    /**
+     * The constructor for a camera looking at an area of the screen
+     * @param viewX the x coordinate of the viewport
+     * @param viewY the y coordinate of the viewport
+     * @param viewWidth the width of the viewport
+     * @param viewHeight the height of the viewport
+     */
+    public Camera(int viewX, int viewY, int viewWidth, int viewHeight){
+        this.viewX = viewX;
+        this.viewY = viewY;
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+        this.tileSize = MINTILESIZE;
+    }
+
+    /**
+     * Looks at a board with edges, zoomed so that the whole board fits the viewport if it can,
+     * and otherwise as far out as the camera goes, with the middle of the board in the middle of the viewport
+     * @param rows the number of rows of the board
+     * @param columns the number of columns of the board
+     */
+    public void fit(int rows, int columns){
+        this.rows = rows;
+        this.columns = columns;
+        tileSize = Math.max(MINTILESIZE, Math.min(MAXTILESIZE, Math.min(viewHeight / rows, viewWidth / columns)));
+        lookAt(rows * tileSize / 2, columns * tileSize / 2);
+    }
+
+    /**
+     * Looks at a board with no edges, with a given tile in the middle of the viewport
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @param tileSize the size to draw tiles at
+     */
+    public void center(int row, int col, int tileSize){
+        this.rows = 0;
+        this.columns = 0;
+        this.tileSize = Math.max(MINTILESIZE, Math.min(MAXTILESIZE, tileSize));
+        lookAt(row * this.tileSize + this.tileSize / 2, col * this.tileSize + this.tileSize / 2);
+    }
+
+    /**
+     * Puts a pixel of the board in the middle of the viewport
+     * @param boardY the y coordinate of the pixel from the top of the board
+     * @param boardX the x coordinate of the pixel from the left of the board
+     */
+    private void lookAt(int boardY, int boardX){
+        offsetX = boardX - viewWidth / 2;
+        offsetY = boardY - viewHeight / 2;
+        clamp();
+    }
+
+    /**
+     * Moves the board across the viewport
+     * @param dx the number of pixels to move the board right
+     * @param dy the number of pixels to move the board down
+     */
+    public void pan(int dx, int dy){
+        offsetX -= dx;
+        offsetY -= dy;
+        clamp();
+    }
+
+    /**
+     * Zooms in or out, keeping the point under the mouse still
+     * @param steps the number of steps to zoom in, or out if negative
+     * @param screenX the x coordinate of the mouse
+     * @param screenY the y coordinate of the mouse
+     */
+    public void zoom(int steps, int screenX, int screenY){
+        int newTileSize = (int) Math.round(tileSize * Math.pow(ZOOMSTEP, steps));
+        if(newTileSize == tileSize){
+            newTileSize += Integer.signum(steps);
+        }
+        newTileSize = Math.max(MINTILESIZE, Math.min(MAXTILESIZE, newTileSize));
+        int anchorX = screenX - viewX;
+        int anchorY = screenY - viewY;
+        offsetX = (int) ((long) (offsetX + anchorX) * newTileSize / tileSize) - anchorX;
+        offsetY = (int) ((long) (offsetY + anchorY) * newTileSize / tileSize) - anchorY;
+        tileSize = newTileSize;
+        clamp();
+    }
+
+    /**
+     * Keeps a board with edges from being moved more than half the viewport past its edges,
+     * and keeps a board that fits in the viewport in the middle of it
+     */
+    private void clamp(){
+        if(columns > 0){
+            offsetX = clampAxis(offsetX, columns * tileSize, viewWidth);
+        }
+        if(rows > 0){
+            offsetY = clampAxis(offsetY, rows * tileSize, viewHeight);
+        }
+    }
+
+    /**
+     * Clamps the offset along one axis
+     * @param offset the offset
+     * @param boardSize the size of the board in pixels along the axis
+     * @param viewSize the size of the viewport along the axis
+     * @return the clamped offset
+     */
+    private static int clampAxis(int offset, int boardSize, int viewSize){
+        if(boardSize <= viewSize){
+            return (boardSize - viewSize) / 2;
+        }
+        return Math.max(-viewSize / 2, Math.min(boardSize - viewSize / 2, offset));
+    }
+
+    /**
+     * Returns whether a point on screen is in the viewport
+     * @param screenX the x coordinate
+     * @param screenY the y coordinate
+     * @return if the point is in the viewport
+     */
+    public boolean contains(int screenX, int screenY){
+        return screenX >= viewX && screenX < viewX + viewWidth && screenY >= viewY && screenY < viewY + viewHeight;
+    }
+
+    /**
+     * Returns the row of the tile at a y coordinate on screen
+     * @param screenY the y coordinate
+     * @return the row, which may be off the board
+     */
+    public int rowAt(int screenY){
+        return Math.floorDiv(screenY - viewY + offsetY, tileSize);
+    }
+
+    /**
+     * Returns the column of the tile at an x coordinate on screen
+     * @param screenX the x coordinate
+     * @return the column, which may be off the board
+     */
+    public int colAt(int screenX){
+        return Math.floorDiv(screenX - viewX + offsetX, tileSize);
+    }
+
+    /**
+     * Returns the y coordinate on screen of the top of a row
+     * @param row the row
+     * @return the y coordinate
+     */
+    public int screenY(int row){
+        return viewY + row * tileSize - offsetY;
+    }
+
+    /**
+     * Returns the x coordinate on screen of the left of a column
+     * @param col the column
+     * @return the x coordinate
+     */
+    public int screenX(int col){
+        return viewX + col * tileSize - offsetX;
+    }
+
+    /**Returns the first row that is at least partly in view
+     * @return the row, which may be off the board**/
+    public int getFirstRow(){ return Math.floorDiv(offsetY, tileSize); }
+
+    /**Returns the row after the last one that is at least partly in view
+     * @return the row, which may be off the board**/
+    public int getEndRow(){ return Math.floorDiv(offsetY + viewHeight - 1, tileSize) + 1; }
+
+    /**Returns the first column that is at least partly in view
+     * @return the column, which may be off the board**/
+    public int getFirstColumn(){ return Math.floorDiv(offsetX, tileSize); }
+
+    /**Returns the column after the last one that is at least partly in view
+     * @return the column, which may be off the board**/
+    public int getEndColumn(){ return Math.floorDiv(offsetX + viewWidth - 1, tileSize) + 1; }
+
+    /**Returns the size tiles are drawn at
+     * @return the tile size in pixels**/
+    public int getTileSize(){ return tileSize; }
+
+    /**Returns the x coordinate of the viewport
+     * @return the x coordinate**/
+    public int getViewX(){ return viewX; }
+
+    /**Returns the y coordinate of the viewport
+     * @return the y coordinate**/
+    public int getViewY(){ return viewY; }
+
+    /**Returns the width of the viewport
+     * @return the width**/
+    public int getViewWidth(){ return viewWidth; }
+
+    /**Returns the height of the viewport
+     * @return the height**/
+    public int getViewHeight(){ return viewHeight; }
+
+    /**Returns the pixel of the board at the left of the viewport
+     * @return the x offset**/
+    public int getOffsetX(){ return offsetX; }
+
+    /**Returns the pixel of the board at the top of the viewport
+     * @return the y offset**/
+    public int getOffsetY(){ return offsetY; }
+
+}
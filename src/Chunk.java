@@ -0,0 +1,226 @@
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+/**
+ * A square of tiles in an endless board. Each row of the chunk is one long in each bitplane,
+ * so a chunk is a few kilobytes. Its bombs depend only on the world seed and where the chunk is,
+ * so they never need to be saved; only what the player has done to the chunk does
+ */
+public class Chunk {
+
+    /**The number of tiles along each side of a chunk**/
+    public static final int SIZE = 64;
+
+    /**The log base 2 of SIZE, for turning world coordinates into chunk coordinates**/
+    public static final int SHIFT = 6;
+
+    /**The number of bytes that saveTo writes**/
+    public static final int SAVEDBYTES = 3 * SIZE * 8;
+
+    /**The row of the chunk among the chunks**/
+    private int chunkRow;
+
+    /**The column of the chunk among the chunks**/
+    private int chunkCol;
+
+    /**One row of tiles per long, with a bit set for each tile that is a bomb**/
+    private long[] bombs;
+
+    /**One row of tiles per long, with a bit set for each tile that is open**/
+    private long[] open;
+
+    /**One row of tiles per long, with a bit set for each tile that is flagged**/
+    private long[] flagged;
+
+    /**One row of tiles per long, with a bit set for each tile that is questioned**/
+    private long[] questioned;
+
+    /**The number of neighboring bombs of each tile, 4 bits per tile and 16 tiles per long**/
+    private long[] neighboringBombs;
+
+    /**True if the player has changed the chunk since it was made or loaded**/
+    private boolean isModified;
+
+    /**
+     * The constructor for a chunk that no tile has been opened in
+     * @param chunkRow the row of the chunk among the chunks
+     * @param chunkCol the column of the chunk among the chunks
+     * @param around the bombs of the chunk and the 8 chunks around it, indexed [row+1][column+1] from this one
+     */
+    public Chunk(int chunkRow, int chunkCol, long[][][] around){
+        this.chunkRow = chunkRow;
+        this.chunkCol = chunkCol;
+        this.bombs = around[1][1];
+        this.open = new long[SIZE];
+        this.flagged = new long[SIZE];
+        this.questioned = new long[SIZE];
+        this.neighboringBombs = new long[SIZE * SIZE / 16];
+        for (int r = 0; r < SIZE; r++) {
+            for (int c = 0; c < SIZE; c++) {
+                int count = 0;
+                for (int dr = -1; dr <= 1; dr++) {
+                    for (int dc = -1; dc <= 1; dc++) {
+                        if((dr != 0 || dc != 0) && isBombAround(around, r + dr, c + dc)){
+                            count++;
+                        }
+                    }
+                }
+                int i = (r << SHIFT) | c;
+                neighboringBombs[i >>> 4] |= (long) count << ((i & 15) << 2);
+            }
+        }
+    }
+
+    /**
+     * Returns whether a tile near the chunk is a bomb
+     * @param around the bombs of the chunk and the 8 chunks around it
+     * @param r the row of the tile from the top of this chunk, from -1 to SIZE
+     * @param c the column of the tile from the left of this chunk, from -1 to SIZE
+     * @return if the tile is a bomb
+     */
+    private static boolean isBombAround(long[][][] around, int r, int c){
+        long[] plane = around[r < 0 ? 0 : r < SIZE ? 1 : 2][c < 0 ? 0 : c < SIZE ? 1 : 2];
+        return (plane[r & (SIZE - 1)] & (1L << c)) != 0;
+    }
+
+    /**
+     * Makes the bombs of a chunk. The bombs are a random sample of the chunk's tiles chosen with Floyd's
+     * algorithm from a generator seeded by the world seed and the chunk's place, so the same chunk always
+     * gets the same bombs. The 3x3 square around the world's origin never has bombs, so the game can open it first
+     * @param worldSeed the seed of the endless board
+     * @param chunkRow the row of the chunk among the chunks
+     * @param chunkCol the column of the chunk among the chunks
+     * @param numBombs the number of bombs in a chunk
+     * @return one row of tiles per long, with a bit set for each tile that is a bomb
+     */
+    public static long[] generateBombs(long worldSeed, int chunkRow, int chunkCol, int numBombs){
+        SplittableRandom random = new SplittableRandom(worldSeed
+                ^ (chunkRow * 0x9E3779B97F4A7C15L) ^ (chunkCol * 0xC2B2AE3D27D4EB4FL));
+        long[] plane = new long[SIZE];
+        int spots = SIZE * SIZE;
+        for (int j = spots - numBombs; j < spots; j++) {
+            int i = random.nextInt(j + 1);
+            if((plane[i >>> SHIFT] & (1L << i)) != 0){
+                i = j;
+            }
+            plane[i >>> SHIFT] |= 1L << i;
+        }
+        for (int r = -1; r <= 1; r++) {
+            for (int c = -1; c <= 1; c++) {
+                if(r >> SHIFT == chunkRow && c >> SHIFT == chunkCol){
+                    plane[r & (SIZE - 1)] &= ~(1L << c);
+                }
+            }
+        }
+        return plane;
+    }
+
+    /**
+     * Writes what the player has done to the chunk, which is every bitplane but the bombs
+     * @param buffer the buffer to write SAVEDBYTES bytes to
+     */
+    public void saveTo(ByteBuffer buffer){
+        for (long[] plane : new long[][]{open, flagged, questioned}) {
+            for (long row : plane) {
+                buffer.putLong(row);
+            }
+        }
+    }
+
+    /**
+     * Reads what the player has done to the chunk, as written by saveTo
+     * @param buffer the buffer to read SAVEDBYTES bytes from
+     */
+    public void loadFrom(ByteBuffer buffer){
+        for (long[] plane : new long[][]{open, flagged, questioned}) {
+            for (int r = 0; r < SIZE; r++) {
+                plane[r] = buffer.getLong();
+            }
+        }
+    }
+
+    /**Returns the row of the chunk among the chunks
+     * @return the chunk row**/
+    public int getChunkRow(){ return chunkRow; }
+
+    /**Returns the column of the chunk among the chunks
+     * @return the chunk column**/
+    public int getChunkCol(){ return chunkCol; }
+
+    /**Returns whether the player has changed the chunk since it was made or loaded
+     * @return true if it needs to be saved to be kept**/
+    public boolean isModified(){ return isModified; }
+
+    /**Returns whether a tile is a bomb
+     * @param r the row in the chunk
+     * @param c the column in the chunk
+     * @return if the tile is a bomb**/
+    public boolean checkIfBomb(int r, int c){ return (bombs[r] & (1L << c)) != 0; }
+
+    /**Returns whether a tile is open
+     * @param r the row in the chunk
+     * @param c the column in the chunk
+     * @return if the tile is open**/
+    public boolean isOpen(int r, int c){ return (open[r] & (1L << c)) != 0; }
+
+    /**Returns whether a tile is flagged
+     * @param r the row in the chunk
+     * @param c the column in the chunk
+     * @return if the tile is flagged**/
+    public boolean isFlagged(int r, int c){ return (flagged[r] & (1L << c)) != 0; }
+
+    /**Returns whether a tile is questioned
+     * @param r the row in the chunk
+     * @param c the column in the chunk
+     * @return if the tile is questioned**/
+    public boolean isQuestioned(int r, int c){ return (questioned[r] & (1L << c)) != 0; }
+
+    /**Returns whether a tile is closed, and neither flagged nor questioned
+     * @param r the row in the chunk
+     * @param c the column in the chunk
+     * @return if the tile is closed**/
+    public boolean isClosed(int r, int c){ return ((open[r] | flagged[r] | questioned[r]) & (1L << c)) == 0; }
+
+    /**Returns the number of bombs around a tile, counting tiles in other chunks
+     * @param r the row in the chunk
+     * @param c the column in the chunk
+     * @return the number of neighboring bombs**/
+    public int getNumNeighboringBombs(int r, int c){
+        int i = (r << SHIFT) | c;
+        return (int) (neighboringBombs[i >>> 4] >>> ((i & 15) << 2)) & 15;
+    }
+
+    /**Opens a tile
+     * @param r the row in the chunk
+     * @param c the column in the chunk**/
+    public void reveal(int r, int c){
+        open[r] |= 1L << c;
+        isModified = true;
+    }
+
+    /**
+     * Moves a tile that is not open from closed to flagged, from flagged to questioned, or from questioned to closed
+     * @param r the row in the chunk
+     * @param c the column in the chunk
+     * @return the change in the number of flags, which is 1, -1 or 0
+     */
+    public int toggleState(int r, int c){
+        long bit = 1L << c;
+        if((open[r] & bit) != 0){
+            return 0;
+        }
+        isModified = true;
+        if(((open[r] | flagged[r] | questioned[r]) & bit) == 0){
+            flagged[r] |= bit;
+            return 1;
+        }
+        if((flagged[r] & bit) != 0){
+            flagged[r] &= ~bit;
+            questioned[r] |= bit;
+            return -1;
+        }
+        questioned[r] &= ~bit;
+        return 0;
+    }
+
+}
@@ -0,0 +1,134 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps chunks that have been pushed out of memory on disk.
+ * Chunks are grouped into square regions, and each region is one file with a fixed size slot for
+ * every chunk in it, so where a chunk is saved follows from where it is and nothing about the saved
+ * chunks has to be kept in memory. Slots that were never written are holes in the file
+ */
+public class ChunkStore {
+
+    /**The number of chunks along each side of a region**/
+    private static final int REGIONSIZE = 32;
+
+    /**The log base 2 of REGIONSIZE**/
+    private static final int REGIONSHIFT = 5;
+
+    /**The size of a slot, which is a byte that is 1 if the slot is used, then the saved chunk**/
+    private static final int SLOTBYTES = 1 + Chunk.SAVEDBYTES;
+
+    /**The directory the region files are in**/
+    private Path directory;
+
+    /**The buffer slots are read into and written from**/
+    private ByteBuffer slot;
+
+    /**
+     * The constructor for a store that keeps its files in a new temporary directory
+     * @throws UncheckedIOException if the directory cannot be made
+     */
+    public ChunkStore(){
+        try {
+            this.directory = Files.createTempDirectory("minesweeper-chunks");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.slot = ByteBuffer.allocate(SLOTBYTES);
+    }
+
+    /**
+     * Returns the file of the region that a chunk is in
+     * @param chunkRow the row of the chunk
+     * @param chunkCol the column of the chunk
+     * @return the path of the region file
+     */
+    private Path regionOf(int chunkRow, int chunkCol){
+        return directory.resolve("r." + (chunkRow >> REGIONSHIFT) + "." + (chunkCol >> REGIONSHIFT) + ".dat");
+    }
+
+    /**
+     * Returns where a chunk's slot starts in its region file
+     * @param chunkRow the row of the chunk
+     * @param chunkCol the column of the chunk
+     * @return the offset in bytes
+     */
+    private static long offsetOf(int chunkRow, int chunkCol){
+        int slotIndex = (chunkRow & (REGIONSIZE - 1)) * REGIONSIZE + (chunkCol & (REGIONSIZE - 1));
+        return (long) slotIndex * SLOTBYTES;
+    }
+
+    /**
+     * Saves a chunk, over whatever was saved for it before
+     * @param chunk the chunk
+     * @throws UncheckedIOException if the chunk cannot be written
+     */
+    public void save(Chunk chunk){
+        slot.clear();
+        slot.put((byte) 1);
+        chunk.saveTo(slot);
+        slot.flip();
+        try (FileChannel channel = FileChannel.open(regionOf(chunk.getChunkRow(), chunk.getChunkCol()),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long offset = offsetOf(chunk.getChunkRow(), chunk.getChunkCol());
+            while(slot.hasRemaining()){
+                offset += channel.write(slot, offset);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Loads what was saved for a chunk into it, if anything was
+     * @param chunk the chunk, which is left as it is if it was never saved
+     * @return true if the chunk was loaded
+     * @throws UncheckedIOException if the region file cannot be read
+     */
+    public boolean load(Chunk chunk){
+        Path region = regionOf(chunk.getChunkRow(), chunk.getChunkCol());
+        if(!Files.exists(region)){
+            return false;
+        }
+        slot.clear();
+        try (FileChannel channel = FileChannel.open(region, StandardOpenOption.READ)) {
+            long offset = offsetOf(chunk.getChunkRow(), chunk.getChunkCol());
+            int read;
+            while(slot.hasRemaining() && (read = channel.read(slot, offset)) > 0){
+                offset += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if(slot.hasRemaining() || slot.get(0) != 1){
+            return false;
+        }
+        slot.position(1);
+        chunk.loadFrom(slot);
+        return true;
+    }
+
+    /**
+     * Deletes every region file and the directory they are in
+     * @throws UncheckedIOException if they cannot be deleted
+     */
+    public void delete(){
+        try {
+            try (DirectoryStream<Path> regions = Files.newDirectoryStream(directory)) {
+                for (Path region : regions) {
+                    Files.delete(region);
+                }
+            }
+            Files.delete(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
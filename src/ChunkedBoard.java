@@ -0,0 +1,394 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An endless board, split into chunks that are made the first time any of their tiles is looked at.
+ * A chunk's bombs come from the world seed and where the chunk is, so a chunk can always be made again.
+ * Only a fixed number of chunks are kept in memory; when another is needed the one used longest ago is
+ * dropped, after being saved to a ChunkStore if the player has changed it, and it is loaded back when
+ * it is next looked at. So memory stays the same however far the player goes.
+ * The rules are the same as a Board's, except that there is no winning, only opening a bomb
+ */
+public class ChunkedBoard {
+
+    /**The fewest bombs per tile allowed, since with fewer the tiles with no bombs around them
+     * join up into areas so large that one click could open tiles forever**/
+    public static final double MINDENSITY = 0.15;
+
+    /**The most bombs per tile allowed**/
+    public static final double MAXDENSITY = 0.5;
+
+    /**The number of chunks kept in memory by default, about a megabyte**/
+    public static final int DEFAULTLOADEDCHUNKS = 256;
+
+    /**The clock the game is timed with**/
+    private Clock clock;
+
+    /**The time of the first click, if the timer has started**/
+    private long startTime;
+    private boolean isTimerStarted;
+
+    /**The time the game ended, if the timer has stopped**/
+    private long endTime;
+    private boolean isTimerStopped;
+
+    /**The seed every chunk's bombs are made from**/
+    private long worldSeed;
+
+    /**The number of bombs in each chunk**/
+    private int bombsPerChunk;
+
+    /**The chunks in memory, in order from the one used longest ago**/
+    private LinkedHashMap<Long, Chunk> chunks;
+
+    /**The chunk used last, which is looked at again far more often than any other**/
+    private Chunk lastChunk;
+
+    /**Where chunks are kept when they are not in memory**/
+    private ChunkStore store;
+
+    /**The number of safe tiles that have been opened**/
+    private long openSafeCount;
+
+    /**The number of tiles that are flagged**/
+    private long flagCount;
+
+    /**True once a bomb has been opened**/
+    private boolean isBombOpen;
+
+    /**The place of the last bomb opened**/
+    private int openedBombRow;
+    private int openedBombCol;
+
+    /**The place of the hovered tile, if there is one**/
+    private int hoveredRow;
+    private int hoveredCol;
+    private boolean isHovering;
+
+    /**
+     * The constructor for an endless board
+     * @param worldSeed the seed every chunk's bombs are made from
+     * @param density the fraction of tiles that are bombs, from MINDENSITY to MAXDENSITY
+     * @param maxLoadedChunks the most chunks to keep in memory at once, which must be more than fit on screen
+     * @param store where chunks are kept when they are not in memory
+     * @param clock the clock the game is timed with
+     */
+    public ChunkedBoard(long worldSeed, double density, int maxLoadedChunks, ChunkStore store, Clock clock){
+        if(density < MINDENSITY || density > MAXDENSITY){
+            throw new IllegalArgumentException("density must be from " + MINDENSITY + " to " + MAXDENSITY + ": " + density);
+        }
+        this.worldSeed = worldSeed;
+        this.bombsPerChunk = (int) Math.round(density * Chunk.SIZE * Chunk.SIZE);
+        this.store = store;
+        this.clock = clock;
+        this.chunks = new LinkedHashMap<Long, Chunk>(maxLoadedChunks * 2, 0.75f, true){
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest){
+                if(size() <= maxLoadedChunks){
+                    return false;
+                }
+                evict(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Pushes a chunk out of memory, saving it first if the player has changed it
+     * @param chunk the chunk
+     */
+    private void evict(Chunk chunk){
+        if(chunk.isModified()){
+            store.save(chunk);
+        }
+        if(chunk == lastChunk){
+            lastChunk = null;
+        }
+    }
+
+    /**
+     * Returns the chunk a tile is in, loading or making it if it is not in memory
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @return the chunk
+     */
+    private Chunk chunkOf(int row, int col){
+        int chunkRow = row >> Chunk.SHIFT;
+        int chunkCol = col >> Chunk.SHIFT;
+        if(lastChunk != null && lastChunk.getChunkRow() == chunkRow && lastChunk.getChunkCol() == chunkCol){
+            return lastChunk;
+        }
+        long key = ((long) chunkRow << 32) | (chunkCol & 0xFFFFFFFFL);
+        Chunk chunk = chunks.get(key);
+        if(chunk == null){
+            long[][][] around = new long[3][3][];
+            for (int r = 0; r < 3; r++) {
+                for (int c = 0; c < 3; c++) {
+                    around[r][c] = Chunk.generateBombs(worldSeed, chunkRow + r - 1, chunkCol + c - 1, bombsPerChunk);
+                }
+            }
+            chunk = new Chunk(chunkRow, chunkCol, around);
+            store.load(chunk);
+            chunks.put(key, chunk);
+        }
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    /**
+     * Method run on left click that will attempt to left click a tile, with the same rules as a Board
+     * @param r row of click
+     * @param c column of click
+     * @return the number of tiles that the click revealed
+     */
+    public long leftClick(int r, int c){
+        startTimer();
+        if(chunkOf(r, c).isFlagged(r & (Chunk.SIZE - 1), c & (Chunk.SIZE - 1))){
+            return 0;
+        }
+        return revealTiles(r, c);
+    }
+
+    /**
+     * Reveals a tile, chaining across chunks to tiles with no bombs nearby, or chords an open tile with
+     * as many flags around it as bombs. The chain is followed with a stack of places like a Board's
+     * @param row the row of the tile to reveal
+     * @param col the column of the tile to reveal
+     * @return the number of tiles revealed
+     */
+    private long revealTiles(int row, int col){
+        IntList sweepRows = new IntList();
+        IntList sweepCols = new IntList();
+        long revealed = 0;
+
+        if(isOpen(row, col)){
+            if(getNumNeighboringBombs(row, col) == numNeighboringFlags(row, col)){
+                revealed += revealNeighbors(row, col, sweepRows, sweepCols);
+            }
+        }else if(isClosed(row, col)){
+            revealed += revealTile(row, col, sweepRows, sweepCols);
+        }
+
+        while(!sweepRows.isEmpty()){
+            revealed += revealNeighbors(sweepRows.pop(), sweepCols.pop(), sweepRows, sweepCols);
+        }
+        return revealed;
+    }
+
+    /**
+     * Reveals every closed tile in the 8 tile ring around a tile
+     * @param row the row of the center tile
+     * @param col the column of the center tile
+     * @param sweepRows the stack that the rows of tiles with no neighboring bombs are pushed to
+     * @param sweepCols the stack that the columns of those tiles are pushed to
+     * @return the number of tiles revealed
+     */
+    private long revealNeighbors(int row, int col, IntList sweepRows, IntList sweepCols){
+        long revealed = 0;
+        for (int r = row-1; r <= row+1; r++) {
+            for (int c = col-1; c <= col+1; c++) {
+                if(isClosed(r, c)){
+                    revealed += revealTile(r, c, sweepRows, sweepCols);
+                }
+            }
+        }
+        return revealed;
+    }
+
+    /**
+     * Reveals a single closed tile, and pushes it to be swept if it has no neighboring bombs
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @param sweepRows the stack that the row is pushed to if it has no neighboring bombs
+     * @param sweepCols the stack that the column is pushed to
+     * @return 1, the number of tiles revealed
+     */
+    private long revealTile(int row, int col, IntList sweepRows, IntList sweepCols){
+        Chunk chunk = chunkOf(row, col);
+        int r = row & (Chunk.SIZE - 1);
+        int c = col & (Chunk.SIZE - 1);
+        chunk.reveal(r, c);
+        if(chunk.checkIfBomb(r, c)){
+            isBombOpen = true;
+            openedBombRow = row;
+            openedBombCol = col;
+            stopTimer();
+        }else{
+            openSafeCount++;
+            if(chunk.getNumNeighboringBombs(r, c) == 0){
+                sweepRows.add(row);
+                sweepCols.add(col);
+            }
+        }
+        if(isHovering && row == hoveredRow && col == hoveredCol){
+            isHovering = false;
+        }
+        return 1;
+    }
+
+    /**
+     * Method run on right click that moves a tile from closed to flagged to questioned and back
+     * @param r row of click
+     * @param c column of click
+     */
+    public void rightClick(int r, int c){
+        startTimer();
+        flagCount += chunkOf(r, c).toggleState(r & (Chunk.SIZE - 1), c & (Chunk.SIZE - 1));
+    }
+
+    /**
+     * Moves the hover to a tile, if it is closed
+     * @param r row of the tile
+     * @param c column of the tile
+     */
+    public void hover(int r, int c){
+        isHovering = isClosed(r, c);
+        hoveredRow = r;
+        hoveredCol = c;
+    }
+
+    /**
+     * Unhovers the hovered tile
+     */
+    public void unHoverAll(){
+        isHovering = false;
+    }
+
+    /**
+     * Returns whether the game is still going, which it is until a bomb is opened
+     * @return Board.RUNNING or Board.LOSSSTOPPED
+     */
+    public int getGameState(){
+        return isBombOpen ? Board.LOSSSTOPPED : Board.RUNNING;
+    }
+
+    /**
+     * Starts timing the game if it has not been started yet
+     */
+    private void startTimer(){
+        if(!isTimerStarted){
+            startTime = clock.millis();
+            isTimerStarted = true;
+        }
+    }
+
+    /**
+     * Stops timing the game if it has not been stopped yet
+     */
+    private void stopTimer(){
+        if(!isTimerStopped){
+            endTime = clock.millis();
+            isTimerStopped = true;
+        }
+    }
+
+    /**
+     * Returns how long the game has been played for, which stops counting once a bomb is opened
+     * @return the time since the first click in milliseconds, or 0 if there has been no click
+     */
+    public long getElapsedMillis(){
+        if(!isTimerStarted){
+            return 0;
+        }
+        if(isTimerStopped){
+            return endTime - startTime;
+        }
+        return clock.millis() - startTime;
+    }
+
+    /**
+     * Returns the number of flags around a tile
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @return the number of neighboring flags
+     */
+    private int numNeighboringFlags(int row, int col){
+        int flags = 0;
+        for (int r = row-1; r <= row+1; r++) {
+            for (int c = col-1; c <= col+1; c++) {
+                if(isFlagged(r, c)){
+                    flags++;
+                }
+            }
+        }
+        return flags;
+    }
+
+    /**
+     * Pushes every chunk out of memory and deletes the chunks saved on disk
+     */
+    public void close(){
+        chunks.clear();
+        lastChunk = null;
+        store.delete();
+    }
+
+    /**Returns whether a tile is a bomb
+     * @param r the row of the tile
+     * @param c the column of the tile
+     * @return if the tile is a bomb**/
+    public boolean checkIfBomb(int r, int c){ return chunkOf(r, c).checkIfBomb(r & (Chunk.SIZE - 1), c & (Chunk.SIZE - 1)); }
+
+    /**Returns whether a tile is open
+     * @param r the row of the tile
+     * @param c the column of the tile
+     * @return if the tile is open**/
+    public boolean isOpen(int r, int c){ return chunkOf(r, c).isOpen(r & (Chunk.SIZE - 1), c & (Chunk.SIZE - 1)); }
+
+    /**Returns whether a tile is flagged
+     * @param r the row of the tile
+     * @param c the column of the tile
+     * @return if the tile is flagged**/
+    public boolean isFlagged(int r, int c){ return chunkOf(r, c).isFlagged(r & (Chunk.SIZE - 1), c & (Chunk.SIZE - 1)); }
+
+    /**Returns whether a tile is questioned
+     * @param r the row of the tile
+     * @param c the column of the tile
+     * @return if the tile is questioned**/
+    public boolean isQuestioned(int r, int c){ return chunkOf(r, c).isQuestioned(r & (Chunk.SIZE - 1), c & (Chunk.SIZE - 1)); }
+
+    /**Returns whether a tile is closed, and neither flagged nor questioned
+     * @param r the row of the tile
+     * @param c the column of the tile
+     * @return if the tile is closed**/
+    public boolean isClosed(int r, int c){ return chunkOf(r, c).isClosed(r & (Chunk.SIZE - 1), c & (Chunk.SIZE - 1)); }
+
+    /**Returns whether a tile is hovered
+     * @param r the row of the tile
+     * @param c the column of the tile
+     * @return if the tile is hovered**/
+    public boolean isHovered(int r, int c){ return isHovering && r == hoveredRow && c == hoveredCol; }
+
+    /**Returns the number of bombs around a tile
+     * @param r the row of the tile
+     * @param c the column of the tile
+     * @return the number of neighboring bombs**/
+    public int getNumNeighboringBombs(int r, int c){ return chunkOf(r, c).getNumNeighboringBombs(r & (Chunk.SIZE - 1), c & (Chunk.SIZE - 1)); }
+
+    /**Returns the number of safe tiles that have been opened
+     * @return the number of open tiles**/
+    public long getOpenSafeCount(){ return openSafeCount; }
+
+    /**Returns the number of flagged tiles
+     * @return the number of flags**/
+    public long getFlagCount(){ return flagCount; }
+
+    /**Returns the row of the last bomb opened
+     * @return the row**/
+    public int getOpenedBombRow(){ return openedBombRow; }
+
+    /**Returns the column of the last bomb opened
+     * @return the column**/
+    public int getOpenedBombCol(){ return openedBombCol; }
+
+    /**Returns the number of chunks in memory
+     * @return the number of loaded chunks**/
+    public int getLoadedChunkCount(){ return chunks.size(); }
+
+    /**Returns the seed every chunk's bombs are made from
+     * @return the world seed**/
+    public long getWorldSeed(){ return worldSeed; }
+
+}
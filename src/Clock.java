@@ -0,0 +1,16 @@
+/**
+ * A source of time for the game engine, so that a board can be timed by processing
+ * while it is drawn, or by the system (or a simulated clock) when it is run headless
+ */
+public interface Clock {
+
+    /**A clock that reads the system's monotonic timer**/
+    Clock SYSTEM = () -> System.nanoTime() / 1000000L;
+
+    /**
+     * Returns the current time
+     * @return the current time in milliseconds, measured from an arbitrary origin
+     */
+    long millis();
+
+}
@@ -0,0 +1,187 @@
+import processing.core.PApplet;
+
+import java.util.SplittableRandom;
+
+/**The endless game class is used to handle a game of minesweeper
+ * on an endless board, which the player pans and zooms around with the camera**/
+public class EndlessGame {
+
+    /**The PApplet that the game can use to draw**/
+    private PApplet p;
+
+    /**The images that are used in the game, resized to the current tile size**/
+    private SpriteCache sprites;
+
+    /**The clock that boards are timed with**/
+    private Clock clock;
+
+    /**The endless board being played**/
+    private ChunkedBoard board;
+
+    /**The renderer that draws the board**/
+    private EndlessRenderer renderer;
+
+    /**The fraction of tiles that are bombs**/
+    private double density;
+
+    /**The camera the board is seen through, which looks at the screen below the counters**/
+    private Camera camera;
+
+    /**
+     * Default constructor for an endless game
+     * @param p the PApplet that can be used to draw
+     * @param sprites the images that can be drawn, which the game resizes to its tile size
+     * @param clock the clock that boards are timed with
+     */
+    public EndlessGame(PApplet p, SpriteCache sprites, Clock clock){
+        this.p = p;
+        this.sprites = sprites;
+        this.clock = clock;
+        this.renderer = new EndlessRenderer(p, sprites);
+    }
+
+    /**
+     * Starts a new endless board, opening the area around the origin and scrolling to it
+     * @param density the fraction of tiles that are bombs, which is kept from ChunkedBoard.MINDENSITY to MAXDENSITY
+     */
+    public void start(double density){
+        this.density = Math.max(ChunkedBoard.MINDENSITY, Math.min(ChunkedBoard.MAXDENSITY, density));
+        if(board != null){
+            board.close();
+        }
+        board = new ChunkedBoard(new SplittableRandom().nextLong(), this.density,
+                ChunkedBoard.DEFAULTLOADEDCHUNKS, new ChunkStore(), clock);
+
+        int boardY = (int) (p.height*0.2);
+        camera = new Camera(0, boardY, p.width, p.height - boardY);
+        camera.center(0, 0, p.height / 30);
+        sprites.setSizes(camera.getTileSize(), (p.height / 5) - (p.height / 30));
+
+        board.leftClick(0, 0);
+    }
+
+    /**
+     * Ends the game, deleting anything it saved to disk
+     */
+    public void close(){
+        if(board != null){
+            board.close();
+            board = null;
+        }
+    }
+
+    /**
+     * Moves the board across the screen
+     * @param dx the number of pixels to move the board right
+     * @param dy the number of pixels to move the board down
+     */
+    public void pan(int dx, int dy){
+        camera.pan(dx, dy);
+    }
+
+    /**
+     * Moves the view over the board by whole tiles
+     * @param rows the number of rows to move the view down
+     * @param cols the number of columns to move the view right
+     */
+    public void scroll(int rows, int cols){
+        camera.pan(-cols * camera.getTileSize(), -rows * camera.getTileSize());
+    }
+
+    /**
+     * Zooms the board in or out around the mouse
+     * @param steps the number of steps to zoom in, or out if negative
+     * @param x x location of the mouse
+     * @param y y location of the mouse
+     */
+    public void zoom(int steps, int x, int y){
+        camera.zoom(steps, x, y);
+        sprites.setSizes(camera.getTileSize(), (p.height / 5) - (p.height / 30));
+    }
+
+    /**
+     * Draws the board in view and the counters above it
+     */
+    public void draw(){
+        int gameState = board.getGameState();
+        if(gameState == Board.LOSSSTOPPED){
+            p.background(150,0,0);
+        }else{
+            p.background(0);
+        }
+        renderer.draw(board, camera);
+
+        p.noStroke();
+        p.fill(255);
+        p.textSize(60);
+        p.text(Long.toString(board.getOpenSafeCount()), 50, p.height/10);
+        int currentTime = (int) (board.getElapsedMillis() / 1000);
+        p.text(currentTime, p.width-50-45*Integer.toString(currentTime).length(), p.height/10);
+        p.textSize(30);
+        p.text("TILES", 50, p.height/10+40);
+        p.text("TIMER", p.width-140, p.height/10+40);
+
+        int side = (p.height / 5) - (p.height / 30);
+        sprites.draw(p.g, gameState == Board.LOSSSTOPPED ? 15 : 13, p.width/2-side/2, p.height/60);
+    }
+
+    /**
+     * Method that is called when left clicked, which opens a tile or starts a new board from the reset button
+     * @param x x location of the click
+     * @param y y location of the click
+     * @return the number of tiles revealed
+     */
+    public long leftClick(int x, int y){
+        int side = (p.height / 5) - (p.height / 30);
+        int buttonX = p.width / 2 - side / 2;
+        int buttonY = p.height / 60;
+        if(x >= buttonX && x <= buttonX + side && y >= buttonY && y <= buttonY + side){
+            start(density);
+            return 0;
+        }
+        if(camera.contains(x, y) && board.getGameState() == Board.RUNNING){
+            return board.leftClick(camera.rowAt(y), camera.colAt(x));
+        }
+        return 0;
+    }
+
+    /**
+     * Method that is called when right clicked, which flags a tile
+     * @param x x location of the click
+     * @param y y location of the click
+     */
+    public void rightClick(int x, int y){
+        if(camera.contains(x, y) && board.getGameState() == Board.RUNNING){
+            board.rightClick(camera.rowAt(y), camera.colAt(x));
+        }
+    }
+
+    /**
+     * Method that is called when left click hovering, which moves the hover to the tile under the mouse
+     * @param x x location of the click
+     * @param y y location of the click
+     */
+    public void hoverLeftClick(int x, int y){
+        if(camera.contains(x, y) && board.getGameState() == Board.RUNNING){
+            board.hover(camera.rowAt(y), camera.colAt(x));
+        }else{
+            board.unHoverAll();
+        }
+    }
+
+    /**
+     * Unhovers all hovered tiles
+     */
+    public void unHoverAll(){
+        board.unHoverAll();
+    }
+
+    /**
+     * Method to return the current board
+     * @return the board
+     */
+    public ChunkedBoard getBoard(){
+        return board;
+    }
+
+}
@@ -0,0 +1,71 @@
+import processing.core.PApplet;
+
+/**The class that is used to draw the part of an endless board that is in the camera's view.
+ * An endless board cannot be kept drawn in a buffer, so the tiles in view are drawn
+ * straight to the screen every frame, which costs the same however far the player has gone**/
+public class EndlessRenderer {
+
+    /**The PApplet that the renderer can use to draw**/
+    private PApplet p;
+
+    /**The resized images that are used in the game**/
+    private SpriteCache sprites;
+
+    /**
+     * The constructor that sets all the instance variables in an endless renderer
+     * @param p PApplet that the renderer gets passed so it can draw
+     * @param sprites the resized images that can be drawn
+     */
+    public EndlessRenderer(PApplet p, SpriteCache sprites){
+        this.p = p;
+        this.sprites = sprites;
+    }
+
+    /**
+     * Draws the tiles of the board that are in the camera's view
+     * @param board the board to draw
+     * @param camera the camera the board is seen through, whose tile size the sprites must be cached at
+     */
+    public void draw(ChunkedBoard board, Camera camera){
+        int gameState = board.getGameState();
+        p.clip(camera.getViewX(), camera.getViewY(), camera.getViewWidth(), camera.getViewHeight());
+        for (int r = camera.getFirstRow(); r < camera.getEndRow(); r++) {
+            for (int c = camera.getFirstColumn(); c < camera.getEndColumn(); c++) {
+                sprites.draw(p.g, tileImage(board, r, c, gameState), camera.screenX(c), camera.screenY(r));
+            }
+        }
+        p.noClip();
+    }
+
+    /**
+     * Chooses the image of a tile, the same way the board renderer does
+     * @param board the board
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @param gameState the current state of the game, used to slightly alter functionality
+     * @return the index of the image
+     */
+    private static int tileImage(ChunkedBoard board, int row, int col, int gameState){
+        int tileImage = 9;
+        if(board.isOpen(row, col)){
+            if(board.checkIfBomb(row, col)){
+                tileImage = 11;
+            }else{
+                tileImage = board.getNumNeighboringBombs(row, col);
+            }
+        }else if(board.isFlagged(row, col)){
+            tileImage = 10;
+            if(gameState==Board.LOSSSTOPPED && !board.checkIfBomb(row, col)){
+                tileImage = 18;
+            }
+        }else if(board.isQuestioned(row, col)){
+            tileImage = 17;
+        }else if(gameState==Board.LOSSSTOPPED && board.checkIfBomb(row, col)){
+            tileImage = 12;
+        }else if(board.isHovered(row, col)){
+            tileImage = 0;
+        }
+        return tileImage;
+    }
+
+}
@@ -0,0 +1,287 @@
+import processing.core.PApplet;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures where the time in each frame goes, and how much work each frame does.
+ * The parts of a frame are timed with System.nanoTime and added up over the frame, then each
+ * frame's totals go into rolling histograms covering the last few seconds. The histograms can be
+ * drawn over the game and are registered with JMX. When the stats are off every call returns after
+ * checking one field, so measuring costs nothing noticeable until it is turned on
+ */
+public class FrameStats implements FrameStatsMBean {
+
+    /**The things that are measured, each with its own rolling stat**/
+    public static final int STATE = 0;
+    public static final int BOARD = 1;
+    public static final int HUD = 2;
+    public static final int ANIMATIONS = 3;
+    public static final int FRAME = 4;
+    public static final int TILESDRAWN = 5;
+    public static final int TILESREVEALED = 6;
+    public static final int ALLOCATED = 7;
+    public static final int INPUT = 8;
+
+    /**The names of the things that are measured, used in the overlay and in JMX**/
+    private static final String[] NAMES = {"state", "board", "hud", "animations", "frame", "tilesDrawn", "tilesRevealed", "allocated", "input"};
+
+    /**What each of the things is measured in**/
+    private static final String[] UNITS = {"ns", "ns", "ns", "ns", "ns", "tiles", "tiles", "bytes", "ns"};
+
+    /**The number of frames between rolls of the histograms**/
+    private static final int FRAMESPERWINDOW = 60;
+
+    /**The number of rolls a frame is kept for, so the histograms cover about ten seconds at 60 frames a second**/
+    private static final int WINDOWS = 10;
+
+    /**The domain that the stats are registered under in JMX**/
+    private static final String DOMAIN = "minesweeper";
+
+    /**True if frames should be measured, which can be changed from any thread**/
+    private volatile boolean isEnabled;
+
+    /**True if the frame being drawn is being measured, fixed at the start of each frame**/
+    private boolean isRecording;
+
+    /**A rolling stat for each thing that is measured**/
+    private RollingStat[] stats;
+
+    /**The amount of each thing in the frame so far**/
+    private long[] frameTotals;
+
+    /**True for each thing that has happened in the frame so far**/
+    private boolean[] isInFrame;
+
+    /**The time the frame started**/
+    private long frameStart;
+
+    /**The bytes the drawing thread had allocated when the frame started**/
+    private long frameAllocated;
+
+    /**The number of frames since the histograms were last rolled**/
+    private int framesInWindow;
+
+    /**The number of frames measured**/
+    private volatile long frames;
+
+    /**True if the stats should be emptied before the next frame, which can be asked for from any thread**/
+    private volatile boolean isResetRequested;
+
+    /**The thread bean used to count allocations, or null if the JVM cannot count them**/
+    private com.sun.management.ThreadMXBean threads;
+
+    /**
+     * The constructor for stats that are off
+     */
+    public FrameStats(){
+        stats = new RollingStat[NAMES.length];
+        for (int s = 0; s < stats.length; s++) {
+            stats[s] = new RollingStat(NAMES[s], UNITS[s], WINDOWS);
+        }
+        frameTotals = new long[NAMES.length];
+        isInFrame = new boolean[NAMES.length];
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if(bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()){
+            threads = (com.sun.management.ThreadMXBean) bean;
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+    }
+
+    /**
+     * Registers the stats with the platform's MBean server, replacing any registered before,
+     * as minesweeper:type=FrameStats and one minesweeper:type=FrameStats,name=... for each thing measured
+     */
+    public void register(){
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            register(server, new ObjectName(DOMAIN + ":type=FrameStats"), this);
+            for (RollingStat stat : stats) {
+                register(server, new ObjectName(DOMAIN + ":type=FrameStats,name=" + stat.getName()), stat);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Registers one MBean, first unregistering whatever had the name
+     * @param server the MBean server
+     * @param name the name to register it under
+     * @param bean the MBean
+     * @throws JMException if it cannot be registered
+     */
+    private static void register(MBeanServer server, ObjectName name, Object bean) throws JMException {
+        if(server.isRegistered(name)){
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(bean, name);
+    }
+
+    public boolean isEnabled(){
+        return isEnabled;
+    }
+
+    public void setEnabled(boolean enabled){
+        isEnabled = enabled;
+    }
+
+    public long getFrames(){
+        return frames;
+    }
+
+    /**
+     * Empties every stat before the next frame, so that the drawing thread is the only one to change them
+     */
+    public void reset(){
+        isResetRequested = true;
+    }
+
+    /**
+     * Starts a frame, which is measured if the stats are on
+     */
+    public void beginFrame(){
+        if(isResetRequested){
+            isResetRequested = false;
+            for (RollingStat stat : stats) {
+                stat.clear();
+            }
+            framesInWindow = 0;
+            frames = 0;
+        }
+        isRecording = isEnabled;
+        if(!isRecording){
+            return;
+        }
+        for (int s = 0; s < frameTotals.length; s++) {
+            frameTotals[s] = 0;
+            isInFrame[s] = false;
+        }
+        frameAllocated = allocatedBytes();
+        frameStart = System.nanoTime();
+    }
+
+    /**
+     * Returns the time to pass to stop at the end of a part of the frame
+     * @return the time now, or 0 if the frame is not being measured
+     */
+    public long start(){
+        return isRecording ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Adds the time since start was called to a part of the frame
+     * @param part the part of the frame, such as BOARD
+     * @param start the time returned by start
+     */
+    public void stop(int part, long start){
+        if(isRecording){
+            add(part, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Adds an amount to a thing measured over the frame, such as TILESDRAWN
+     * @param thing the thing measured
+     * @param amount the amount to add
+     */
+    public void add(int thing, long amount){
+        if(isRecording){
+            frameTotals[thing] += amount;
+            isInFrame[thing] = true;
+        }
+    }
+
+    /**
+     * Records a value straight into a thing's histogram, for things measured per event rather than per frame
+     * @param thing the thing measured, such as TILESREVEALED
+     * @param value the value
+     */
+    public void record(int thing, long value){
+        if(isEnabled){
+            stats[thing].record(value);
+        }
+    }
+
+    /**
+     * Ends the frame, putting its totals into the histograms and rolling them every FRAMESPERWINDOW frames
+     */
+    public void endFrame(){
+        if(!isRecording){
+            return;
+        }
+        frameTotals[FRAME] = System.nanoTime() - frameStart;
+        isInFrame[FRAME] = true;
+        if(threads != null){
+            frameTotals[ALLOCATED] = allocatedBytes() - frameAllocated;
+            isInFrame[ALLOCATED] = true;
+        }
+        for (int s = 0; s < frameTotals.length; s++) {
+            if(isInFrame[s]){
+                stats[s].record(frameTotals[s]);
+            }
+        }
+        frames++;
+        if(++framesInWindow == FRAMESPERWINDOW){
+            framesInWindow = 0;
+            for (RollingStat stat : stats) {
+                stat.roll();
+            }
+        }
+        isRecording = false;
+    }
+
+    /**
+     * Returns the bytes the current thread has allocated, which counts a few bytes for asking
+     * @return the bytes, or 0 if the JVM cannot count them
+     */
+    private long allocatedBytes(){
+        return threads != null ? threads.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    /**
+     * Returns the rolling stat of a thing that is measured
+     * @param thing the thing measured, such as FRAME
+     * @return the stat
+     */
+    public RollingStat getStat(int thing){
+        return stats[thing];
+    }
+
+    /**
+     * Draws the stats over the top left of the screen, times in microseconds
+     * @param p the PApplet to draw with
+     */
+    public void drawOverlay(PApplet p){
+        p.noStroke();
+        p.fill(0);
+        p.rect(0, 0, 380, 20 + 16 * stats.length);
+        p.fill(255);
+        p.textSize(12);
+        p.textAlign(PApplet.LEFT, PApplet.TOP);
+        p.text("last " + FRAMESPERWINDOW * WINDOWS + " frames    p50    p90    p99    max", 5, 5);
+        for (int s = 0; s < stats.length; s++) {
+            RollingStat stat = stats[s];
+            boolean isTime = "ns".equals(stat.getUnit());
+            p.text(stat.getName() + (isTime ? " (us)" : " (" + stat.getUnit() + ")"), 5, 21 + 16 * s);
+            p.text(formatStat(stat.getP50(), isTime) + "  " + formatStat(stat.getP90(), isTime) + "  "
+                    + formatStat(stat.getP99(), isTime) + "  " + formatStat(stat.getMax(), isTime), 150, 21 + 16 * s);
+        }
+        p.textAlign(PApplet.LEFT, PApplet.BASELINE);
+    }
+
+    /**
+     * Formats one value of a stat to fit a column of the overlay
+     * @param value the value
+     * @param isTime true if the value is in nanoseconds and should be shown in microseconds
+     * @return the formatted value
+     */
+    private static String formatStat(long value, boolean isTime){
+        return String.format("%6d", isTime ? value / 1000 : value);
+    }
+
+}
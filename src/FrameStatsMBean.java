@@ -0,0 +1,21 @@
+/**
+ * The management interface of FrameStats, which JMX shows as attributes and operations
+ */
+public interface FrameStatsMBean {
+
+    /**Returns whether frames are being measured
+     * @return true if the stats are on**/
+    boolean isEnabled();
+
+    /**Turns measuring frames on or off, starting with the next frame
+     * @param enabled true to turn the stats on**/
+    void setEnabled(boolean enabled);
+
+    /**Returns the number of frames measured since the stats were last reset
+     * @return the number of frames**/
+    long getFrames();
+
+    /**Empties every stat**/
+    void reset();
+
+}
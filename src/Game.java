@@ -1,7 +1,9 @@
 import processing.core.PApplet;
 import processing.core.PImage;
 
-import java.util.ArrayList;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**The game class is used to handle everything
  * that goes on in a game of minesweeper**/
@@ -10,8 +12,8 @@ public class Game {
     /**The PApplet that the game can use to draw**/
     private PApplet p;
 
-    /**The images that are used in the game**/
-    private PImage[] images;
+    /**The images that are used in the game, resized to the current tile size**/
+    private SpriteCache sprites;
 
     /**Integer that indicates the state of the game**/
     private int gameState;
@@ -21,36 +23,120 @@ public class Game {
     private final int WINSTOPPED = 3;
     private final int INSETTINGS = 4;
 
-    /**Time the first click was made**/
-    private int startTime;
+    /**The clock that boards are timed with**/
+    private Clock clock;
 
-    /**The current time in an ongoing game**/
-    private int currentTime;
+    /**The effects drawn over the board, such as explosions**/
+    private Animations animations;
 
-    /**Any explosions in the game**/
-    private ArrayList<Explosion> explosions;
+    /**The state the last game ended in, LOSSSTOPPED or WINSTOPPED, which is redrawn while its effects play**/
+    private int endState;
+
+    /**The delay between each ring of bombs going off when a game is lost, in milliseconds**/
+    private final int EXPLOSIONSTAGGER = 80;
+
+    /**The delay between each ring of bombs flashing when a game is won, in milliseconds**/
+    private final int WINSTAGGER = 40;
+
+    /**The delay between each ring of tiles flashing as they are revealed, in milliseconds**/
+    private final int REVEALSTAGGER = 10;
 
     /**The board of tiles that the game creates as the playing board**/
     private Board board;
 
+    /**The renderer that draws the board**/
+    private BoardRenderer boardRenderer;
+
+    /**The counters, buttons and settings menu, kept drawn in layers that are redrawn only when they change**/
+    private Hud hud;
+
     /**The number of rows in the board**/
     private int boardRows;
 
     /**The number of columns in the board**/
     private int boardColumns;
 
-    /**The x value to draw the board at**/
-    private int boardX;
-
-    /**The y value to start drawing the board at**/
-    private int boardY;
+    /**The camera the board is seen through, which pans and zooms over the area below the counters**/
+    private Camera camera;
 
-    /**The size of the tiles that will be drawn**/
-    private int tileSize;
+    /**The largest number of rows or columns that the settings allow**/
+    private final int MAXBOARDSIZE = 1000;
 
     /**The number of bombs in the game**/
     private int numberBombs;
 
+    /**The longest to search for a board that can be solved without guessing, or 0 for any board**/
+    private long noGuessBudgetMillis;
+
+    /**The budget used when no guessing is turned on**/
+    private final long NOGUESSBUDGET = 1000;
+
+    /**The measurements of where each frame's time goes**/
+    private FrameStats stats;
+
+    /**True if the stats are drawn over the game**/
+    private boolean isShowingStats;
+
+    /**The endless game being played instead, or null if the board is a normal one**/
+    private EndlessGame endless;
+
+    /**The file a game in progress is kept in, so it can be resumed after the sketch is closed**/
+    private Path savePath;
+
+    /**The save file that the board is autosaved to**/
+    private SaveFile saveFile;
+
+    /**How often a game in progress is autosaved, in milliseconds**/
+    private final int AUTOSAVEMILLIS = 10000;
+
+    /**True if the last autosave failed**/
+    private boolean isSaveFailing;
+
+    /**The time of the last autosave**/
+    private int lastSaveMillis;
+
+    /**The file that everything the player does is recorded in**/
+    private Path journalPath;
+
+    /**The journal being recorded, or null if none is, as when a journal is being replayed**/
+    private Journal journal;
+
+    /**The journal being replayed, or null if the game is played by the player.
+     * Once a replay has started nothing is saved or recorded, even after it ends**/
+    private Journal.Reader replay;
+
+    /**The time the replay started**/
+    private long replayStart;
+
+    /**The mouse and key commands waiting for the start of the next frame**/
+    private InputQueue input;
+
+    /**The most commands played in one frame, so a burst of input is spread over frames rather than stalling one**/
+    private final int MAXINPUTPERFRAME = 64;
+
+    /**The AI that plays turns when asked to**/
+    private AI ai;
+
+    /**The AI playing the board on its own thread, or null if it is not**/
+    private Autoplay autoplay;
+
+    /**The rates autoplay can play at, in moves per second, where 0 is as fast as the frame allows**/
+    private final int[] AUTOPLAYRATES = {1, 5, 20, 100, 1000, 0};
+
+    /**The index of the rate autoplay plays at**/
+    private int autoplayRate = 2;
+
+    /**The number of moves autoplay has earned and not yet played, which grows with time at the rate, is not spent at the
+     * fastest rate, and starts again from 0 whenever the rate is changed**/
+    private double autoplayAllowance;
+
+    /**The time autoplay last played**/
+    private int lastAutoplayMillis;
+
+    /**The most time in a frame spent making autoplay's moves, in nanoseconds, so that playing as fast as
+     * possible still leaves the frame time to draw**/
+    private final long AUTOPLAYBUDGETNANOS = 4000000;
+
     /**
      * Default constructor for a game
      * @param p the PApplet that can be used to draw
@@ -58,8 +144,87 @@ public class Game {
      */
     public Game(PApplet p, PImage[] imgs){
         this.p = p;
-        this.images = imgs;
+        this.sprites = new SpriteCache(p, imgs);
         this.gameState = NOTSTARTED;
+        this.clock = p::millis;
+        this.boardRenderer = new BoardRenderer(p, sprites);
+        this.animations = new Animations(p, sprites);
+        this.hud = new Hud(p, sprites);
+        this.stats = new FrameStats();
+        stats.register();
+        this.savePath = Paths.get(p.sketchPath("minesweeper.sav"));
+        this.saveFile = new SaveFile(savePath);
+        this.journalPath = Paths.get(p.sketchPath("minesweeper.journal"));
+        this.input = new InputQueue();
+        this.ai = new AI();
+    }
+
+    /**
+     * Returns the queue that mouse and key events should be put on, which is played at the start of each frame
+     * @return the input queue
+     */
+    public InputQueue getInput(){
+        return input;
+    }
+
+    /**
+     * Plays the commands on the input queue, up to MAXINPUTPERFRAME of them, so that the game only changes
+     * between frames and the frame is drawn from one consistent state
+     */
+    private void applyInput(){
+        for (int n = 0; n < MAXINPUTPERFRAME && input.poll(); n++) {
+            switch (input.getType()) {
+                case InputQueue.LEFTCLICK:
+                    leftClick(input.getA(), input.getB());
+                    break;
+                case InputQueue.RIGHTCLICK:
+                    rightClick(input.getA(), input.getB());
+                    break;
+                case InputQueue.HOVER:
+                    hoverLeftClick(input.getA(), input.getB());
+                    break;
+                case InputQueue.UNHOVER:
+                    unHoverAll();
+                    break;
+                case InputQueue.PAN:
+                    pan(input.getA(), input.getB());
+                    break;
+                case InputQueue.ZOOM:
+                    zoom(input.getA(), input.getB(), input.getC());
+                    break;
+                case InputQueue.SCROLL:
+                    scroll(input.getA(), input.getB());
+                    break;
+                case InputQueue.AITURN:
+                    if(endless == null && !isReplaying()){
+                        stopAutoplay();
+                        ai.playTurn(this);
+                    }
+                    break;
+                case InputQueue.AUTOPLAY:
+                    toggleAutoplay();
+                    break;
+                case InputQueue.SLOWER:
+                    autoplayRate = Math.max(0, autoplayRate - 1);
+                    autoplayAllowance = 0;
+                    break;
+                case InputQueue.FASTER:
+                    autoplayRate = Math.min(AUTOPLAYRATES.length - 1, autoplayRate + 1);
+                    autoplayAllowance = 0;
+                    break;
+                case InputQueue.NOGUESS:
+                    toggleNoGuess();
+                    break;
+                case InputQueue.OVERLAY:
+                    togglePerformanceOverlay();
+                    break;
+                case InputQueue.ENDLESS:
+                    toggleEndless();
+                    break;
+                default:
+                    break;
+            }
+        }
     }
 
     /**
@@ -75,16 +240,129 @@ public class Game {
         boardRows = r;
         boardColumns = c;
 
-        explosions = new ArrayList<>();
+        animations.clear();
 
         setBoard(r, c);
+        setUpCamera();
+
+        gameState = RUNNING;
+    }
 
-        tileSize = (int) Math.min(p.height*0.75/boardRows , p.width*0.9/boardColumns);
-        boardX = (int)(p.width*0.05 + (p.width*0.9 - boardColumns*tileSize)/2);
-        boardY = (int) ((int) p.height*0.2);
+    /**
+     * Resumes the game that was in progress when the sketch was last closed, if there was one
+     * @return true if a game was resumed, or false if there was none or it could not be read
+     */
+    public boolean resume(){
+        Board saved;
+        try {
+            saved = SaveFile.load(savePath, clock);
+        } catch (IllegalStateException | IllegalArgumentException | UncheckedIOException e) {
+            return false;
+        }
+        if(saved == null || saved.getGameState() != Board.RUNNING){
+            return false;
+        }
+
+        //the game was recorded in the journal up to when it was saved, so the journal carries on from there
+        journal = new Journal(journalPath, clock, true);
+
+        board = saved;
+        numberBombs = board.getNumBombs();
+        boardRows = board.getRows();
+        boardColumns = board.getColumns();
+        noGuessBudgetMillis = board.getNoGuessBudgetMillis();
+        saveFile.setBoard(board);
+
+        animations.clear();
+        setUpCamera();
 
         gameState = RUNNING;
-        startTime = 0;
+        return true;
+    }
+
+    /**
+     * Replays a journal in real time, drawing it as it is played. The player's clicks are ignored until it ends
+     * @param path the journal
+     * @throws IllegalStateException if the file is not a journal this version can read
+     */
+    public void replay(Path path){
+        stopAutoplay();
+        replay = new Journal.Reader(path);
+        replayStart = clock.millis();
+        if(journal != null){
+            journal.close();
+            journal = null;
+        }
+    }
+
+    /**
+     * Plays every event of the replay that is due by now, just before the frame is drawn
+     */
+    private void playReplay(){
+        long now = clock.millis() - replayStart;
+        while(replay.hasNext() && replay.nextTime() <= now){
+            replay.next();
+            switch (replay.getType()) {
+                case Journal.BOARD:
+                    if(endless != null){
+                        endless.close();
+                        endless = null;
+                    }
+                    numberBombs = replay.getNumBombs();
+                    boardRows = replay.getRows();
+                    boardColumns = replay.getColumns();
+                    board = new Board(boardRows, boardColumns, numberBombs, replay.getSeed(), clock);
+                    board.setSafeOpening(replay.getFlag());
+                    animations.clear();
+                    setUpCamera();
+                    gameState = RUNNING;
+                    break;
+                case Journal.SEED:
+                    board.setSeed(replay.getSeed());
+                    break;
+                case Journal.LEFTCLICK:
+                    leftClickTile(replay.getRow(), replay.getColumn());
+                    break;
+                case Journal.RIGHTCLICK:
+                    board.rightClick(replay.getRow(), replay.getColumn());
+                    break;
+                case Journal.FLAG:
+                    board.aiRightClick(replay.getRow(), replay.getColumn());
+                    break;
+                case Journal.HOVER:
+                    board.hover(replay.getRow(), replay.getColumn());
+                    break;
+                case Journal.UNHOVER:
+                    board.unHoverAll();
+                    break;
+                case Journal.SETTINGS:
+                    boardRows = replay.getRows();
+                    boardColumns = replay.getColumns();
+                    numberBombs = replay.getNumBombs();
+                    noGuessBudgetMillis = replay.getFlag() ? NOGUESSBUDGET : 0;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Returns whether a replay is being played, during which the player's clicks are ignored
+     * @return true if there are events of the replay left to play
+     */
+    private boolean isReplaying(){
+        return replay != null && replay.hasNext();
+    }
+
+    /**
+     * Makes a camera that fits the board, and sizes the sprites to its tiles
+     */
+    private void setUpCamera(){
+        camera = new Camera((int) (p.width*0.05), (int) (p.height*0.2), (int) (p.width*0.9), (int) (p.height*0.75));
+        camera.fit(boardRows, boardColumns);
+        sprites.setSizes(camera.getTileSize(), (p.height / 5) - (p.height / 30));
+        hud.invalidate();
     }
 
     /**
@@ -102,6 +380,9 @@ public class Game {
         if(gameState == NOTSTARTED || gameState == RUNNING){
             gameState = INSETTINGS;
         }else if(gameState == INSETTINGS){
+            if(journal != null){
+                journal.settings(boardRows, boardColumns, numberBombs, noGuessBudgetMillis > 0);
+            }
             setUpGame(numberBombs, boardRows, boardColumns);
         }
     }
@@ -112,36 +393,272 @@ public class Game {
      * @param c the number of columns
      */
     private void setBoard(int r, int c){
-        board = new Board(r,c,numberBombs,p,images);
+        stopAutoplay();
+        board = new Board(r,c,numberBombs,clock);
+        board.setNoGuess(noGuessBudgetMillis);
+        saveFile.setBoard(board);
+        if(journal == null && replay == null){
+            journal = new Journal(journalPath, clock, false);
+        }
+        if(journal != null){
+            journal.board(board);
+        }
+    }
+
+    /**
+     * Turns on or off making boards that can be solved without guessing, which starts with the next board
+     */
+    public void toggleNoGuess(){
+        noGuessBudgetMillis = noGuessBudgetMillis > 0 ? 0 : NOGUESSBUDGET;
+        if(journal != null){
+            journal.settings(boardRows, boardColumns, numberBombs, noGuessBudgetMillis > 0);
+        }
+    }
+
+    /**
+     * Switches between a normal board and an endless one, which has as many bombs per tile as the
+     * settings give a normal board
+     */
+    public void toggleEndless(){
+        stopAutoplay();
+        if(endless == null){
+            endless = new EndlessGame(p, sprites, clock);
+            endless.start((double) numberBombs / (boardRows * boardColumns));
+        }else{
+            endless.close();
+            endless = null;
+            setUpGame(numberBombs, boardRows, boardColumns);
+        }
+    }
+
+    /**
+     * Returns whether an endless board is being played
+     * @return true if the game is endless
+     */
+    public boolean isEndless(){
+        return endless != null;
+    }
+
+    /**
+     * Moves the board across the screen
+     * @param dx the number of pixels to move the board right
+     * @param dy the number of pixels to move the board down
+     */
+    public void pan(int dx, int dy){
+        if(endless != null){
+            endless.pan(dx, dy);
+        }else if(gameState != INSETTINGS){
+            camera.pan(dx, dy);
+        }
+    }
+
+    /**
+     * Moves the view over the board by whole tiles
+     * @param rows the number of rows to move the view down
+     * @param cols the number of columns to move the view right
+     */
+    public void scroll(int rows, int cols){
+        if(endless != null){
+            endless.scroll(rows, cols);
+        }else if(gameState != INSETTINGS){
+            camera.pan(-cols * camera.getTileSize(), -rows * camera.getTileSize());
+        }
+    }
+
+    /**
+     * Zooms the board in or out around the mouse
+     * @param steps the number of steps to zoom in, or out if negative
+     * @param x x location of the mouse
+     * @param y y location of the mouse
+     */
+    public void zoom(int steps, int x, int y){
+        if(endless != null){
+            endless.zoom(steps, x, y);
+        }else if(gameState != INSETTINGS){
+            camera.zoom(steps, x, y);
+            sprites.setSizes(camera.getTileSize(), (p.height / 5) - (p.height / 30));
+        }
+    }
+
+    /**
+     * Ends the game, deleting anything the endless board saved to disk and writing out the rest of the journal.
+     * A normal game that is in progress is saved so that it can be resumed, and otherwise the save is deleted
+     */
+    public void close(){
+        stopAutoplay();
+        if(endless != null){
+            endless.close();
+        }else if(replay != null){
+            return;
+        }else if(gameState == RUNNING){
+            autosave();
+        }else{
+            try {
+                saveFile.delete();
+            } catch (UncheckedIOException e) {
+                System.err.println("Could not delete the save: " + e.getCause());
+            }
+        }
+        if(journal != null){
+            journal.close();
+            journal = null;
+        }
+    }
+
+    /**
+     * Turns on or off drawing the frame stats over the game, which measures frames only while they are shown
+     */
+    public void togglePerformanceOverlay(){
+        isShowingStats = !isShowingStats;
+        stats.setEnabled(isShowingStats);
     }
 
     /**
-     * This method draws the current game, including the board and any timers, counters, or buttons
+     * Starts the AI playing the board on its own, or stops it if it is playing. It plays a copy of the board
+     * on another thread, so the first click is made here first if it has not been, to place the bombs
+     * the same way on both boards
+     */
+    public void toggleAutoplay(){
+        if(autoplay != null){
+            stopAutoplay();
+            return;
+        }
+        if(endless != null || isReplaying() || gameState != RUNNING || board.getGameState() != Board.RUNNING){
+            return;
+        }
+        if(!board.areBombsSet()){
+            leftClickTile(boardRows / 2, boardColumns / 2);
+            if(board.getGameState() != Board.RUNNING){
+                return;
+            }
+        }
+        autoplay = new Autoplay(board.copy());
+        autoplay.start();
+        autoplayAllowance = 0;
+        lastAutoplayMillis = p.millis();
+    }
+
+    /**
+     * Stops autoplay if it is playing. No move it chose is played after this
+     */
+    private void stopAutoplay(){
+        if(autoplay != null){
+            autoplay.stop();
+            autoplay = null;
+        }
+    }
+
+    /**
+     * Autosaves the game, carrying on unsaved if the file cannot be written, as when the disk is full,
+     * rather than letting the failure stop the sketch. A failure is logged once until a save works again
+     */
+    private void autosave(){
+        try {
+            saveFile.autosave();
+            isSaveFailing = false;
+        } catch (UncheckedIOException e) {
+            if(!isSaveFailing){
+                System.err.println("Could not autosave: " + e.getCause());
+            }
+            isSaveFailing = true;
+        }
+    }
+
+    /**
+     * Plays the moves autoplay has chosen that are due by the rate, without waiting for any that are not
+     * ready and spending no more than AUTOPLAYBUDGETNANOS on them. Autoplay stops once the game is over
+     */
+    private void applyAutoplay(){
+        if(gameState != RUNNING || board.getGameState() != Board.RUNNING || autoplay.isDone()){
+            stopAutoplay();
+            return;
+        }
+        int rate = AUTOPLAYRATES[autoplayRate];
+        int now = p.millis();
+        autoplayAllowance = Math.min(rate, autoplayAllowance + rate * (now - lastAutoplayMillis) / 1000.0);
+        lastAutoplayMillis = now;
+        long deadline = System.nanoTime() + AUTOPLAYBUDGETNANOS;
+        while((rate == 0 || autoplayAllowance >= 1) && board.getGameState() == Board.RUNNING
+                && System.nanoTime() < deadline){
+            Move move = autoplay.poll();
+            if(move == null){
+                break;
+            }
+            applyMove(move);
+            if(rate != 0){
+                autoplayAllowance--;
+            }
+        }
+    }
+
+    /**
+     * This method plays the input queued since the last frame and any moves autoplay has ready, then draws
+     * the current game, including the board and any timers, counters, or buttons, and the frame stats over it
+     * if they are shown, then autosaves a game in progress every so often. When a journal is being replayed, the events that are
+     * due are played before drawing
      */
     public void draw(){
+        stats.beginFrame();
+        animations.beginFrame(p.millis());
+        long start = stats.start();
+        applyInput();
+        stats.stop(FrameStats.INPUT, start);
+        if(autoplay != null){
+            applyAutoplay();
+        }
+        if(isReplaying()){
+            playReplay();
+        }
+        sprites.update();
+        drawGame();
+        stats.endFrame();
+        if(endless == null && replay == null && gameState == RUNNING && p.millis() - lastSaveMillis >= AUTOSAVEMILLIS){
+            autosave();
+            journal.flush();
+            lastSaveMillis = p.millis();
+        }
+        if(isShowingStats){
+            stats.drawOverlay(p);
+        }
+    }
+
+    /**
+     * Draws the current game in whichever state it is in
+     */
+    private void drawGame(){
 
+        if(endless != null){
+            long start = stats.start();
+            endless.draw();
+            stats.stop(FrameStats.BOARD, start);
+            return;
+        }
+
+        long start = stats.start();
         if(gameState == RUNNING) {
             gameState = board.getGameState();
         }
+        stats.stop(FrameStats.STATE, start);
         if(gameState == RUNNING) {
             drawRunning();
         }else if(gameState == LOSSSTOPPED){
-            explosions.add(drawLoss());
+            int bomb = board.getTiles().getOpenedBomb();
+            animations.addBombs(Animations.EXPLOSION, board, camera, Math.max(0, bomb), EXPLOSIONSTAGGER);
+            drawEnd(LOSSSTOPPED);
             gameState = NOTSTARTED;
         }else if(gameState == WINSTOPPED){
-            drawWin();
+            int center = camera.rowAt(camera.getViewY() + camera.getViewHeight() / 2);
+            center = Math.max(0, Math.min(boardRows - 1, center)) * boardColumns
+                    + Math.max(0, Math.min(boardColumns - 1, camera.colAt(camera.getViewX() + camera.getViewWidth() / 2)));
+            animations.addBombs(Animations.WIN, board, camera, center, WINSTAGGER);
+            drawEnd(WINSTOPPED);
             gameState = NOTSTARTED;
         }else if(gameState == INSETTINGS){
             drawSettings();
-        }else if(gameState == NOTSTARTED){
-            for (int i = explosions.size()-1; i > -1; i--) {
-                if(explosions.get(i).explode()){
-                    explosions.remove(i);
-                    gameState = LOSSSTOPPED;
-                    drawLoss();
-                    gameState = NOTSTARTED;
-                }
-            }
+        }else if(gameState == NOTSTARTED && !animations.isEmpty()){
+            //the screen only changes while the effects of the last game's end are playing
+            drawEnd(endState);
+            gameState = NOTSTARTED;
         }
 
 
@@ -151,136 +668,95 @@ public class Game {
      * This method draws an in-progress game
      */
     private void drawRunning(){
-        p.background(0);
-        drawTimer(true);
-        drawCounter();
-        drawSettingsButton();
-        drawResetButton();
-        board.draw(boardX, boardY, tileSize, gameState);
+        drawHud();
+        drawBoard();
+        drawAnimations();
     }
 
     /**
-     * This method draws the settings menu
+     * This method draws the screen of a game that has ended, with the effects playing over it
+     * @param state LOSSSTOPPED or WINSTOPPED
      */
-    private void drawSettings(){
-        p.background(0);
-        p.fill(255,255,255);
-        drawSettingsButton();
-        p.textSize(16);
-        p.text("Left click to increment/decrement by one\nRight click to increment/decrement by 5",p.width/2,25);
-        p.textSize(20);
-        p.text("Rows",p.width/5f,2*p.height/5f + p.height/25f);
-        p.text("Columns",2*p.width/5f,2*p.height/5f + p.height/25f);
-        p.text("Bombs",3*p.width/5f,2*p.height/5f + p.height/25f);
-        p.textSize(40);
-        p.text(boardRows,p.width/5f,2*p.height/5f + p.height/10f);
-        p.text(boardColumns,2*p.width/5f,2*p.height/5f + p.height/10f);
-        p.text(numberBombs,3*p.width/5f,2*p.height/5f + p.height/10f);
-        for (int i = 1; i <= 3; i++) {
-            p.triangle(i*p.width/5f,2*p.height/5f,(i+1)*p.width/5f,2*p.height/5f,(2*i+1)*p.width/10f,p.height/5f);
-        }
-        for (int i = 1; i <= 3; i++) {
-            p.triangle(i*p.width/5f,3*p.height/5f,(i+1)*p.width/5f,3*p.height/5f,(2*i+1)*p.width/10f,4*p.height/5f);
+    private void drawEnd(int state){
+        endState = state;
+        gameState = state;
+        if(state == LOSSSTOPPED){
+            drawLoss();
+        }else{
+            drawWin();
         }
-
+        drawAnimations();
     }
 
     /**
-     * This method draws a win screen
+     * Draws the effects over the board, timing them
      */
-    private void drawWin(){
-        p.background(0,100,0);
-        p.fill(255);
-        board.draw(boardX, boardY, tileSize, gameState);
-        p.fill(0,255,0);
-        drawTimer(false);
-        drawCounter();
-        drawResetButton();
-        drawSettingsButton();
-
+    private void drawAnimations(){
+        long start = stats.start();
+        animations.draw(camera);
+        stats.stop(FrameStats.ANIMATIONS, start);
     }
 
     /**
-     * This method draws a loss screen
-     * @return the explosion generated by the loss
-     */
-    private Explosion drawLoss(){
-        p.background(150,0,0);
-        p.fill(255,0,0);
-        drawTimer(false);
-        drawCounter();
-        drawResetButton();
-        drawSettingsButton();
-        p.fill(255);
-        return board.draw(boardX, boardY, tileSize, gameState);
+     * This method draws the settings menu
+     */
+    private void drawSettings(){
+        long start = stats.start();
+        hud.drawSettings(boardRows, boardColumns, numberBombs, noGuessBudgetMillis > 0);
+        stats.stop(FrameStats.HUD, start);
     }
 
     /**
-     * Method that updates the score counter
+     * This method draws a win screen
      */
-    private void drawCounter(){
-        p.noStroke();
+    private void drawWin(){
+        drawHud();
         p.fill(255);
-
-        int score = numberBombs - board.getFlagCount();
-        p.textSize(60);
-        p.text(score, 50, p.height/10);
-        p.textSize(30);
-        p.text("BOMBS", 50, p.height/10+40);
+        drawBoard();
     }
 
     /**
-     * Method that updates the timer
-     * @param update if the time should be updated or not
+     * This method draws a loss screen
      */
-    private void drawTimer(boolean update){
-        p.noStroke();
+    private void drawLoss(){
+        drawHud();
         p.fill(255);
-
-        if(update) {
-            currentTime = (p.millis() - startTime) / 1000;
-        }
-
-        if(startTime==0){
-            currentTime = 0;
-        }
-
-        int textWidth = 45*Integer.toString(currentTime).length();
-        p.textSize(60);
-        p.text(currentTime, p.width-50-textWidth, p.height/10);
-        p.textSize(30);
-        p.text("TIMER", p.width-140,p.height/10+40);
+        drawBoard();
     }
 
     /**
-     * Method that draws the reset/start game button
+     * Draws the board, timing it and counting the tiles redrawn
      */
-    private void drawResetButton(){
-        p.fill(255);
-        p.textSize(20);
-
-        int side = (p.height / 5) - (p.height / 30);
-        int x = p.width/2-side/2;
-        int y = p.height/60;
+    private void drawBoard(){
+        long start = stats.start();
+        boardRenderer.draw(board, camera, gameState);
+        stats.stop(FrameStats.BOARD, start);
+        stats.add(FrameStats.TILESDRAWN, boardRenderer.getTilesDrawn());
+    }
 
+    /**
+     * Method that clears the screen to the color of the game's state and draws the timer, which the board
+     * stops once the game is over, the score counter, the reset and settings buttons, and the rate autoplay
+     * plays at if it is playing
+     */
+    private void drawHud(){
+        long start = stats.start();
+        int button = Hud.NOBUTTON;
+        int background = p.color(0);
         if(gameState==RUNNING) {
-            p.image(images[13], x, y, side, side);
+            button = Hud.RESETBUTTON;
         }
         if(gameState==WINSTOPPED){
-            p.image(images[14], x, y, side, side);
+            button = Hud.WINBUTTON;
+            background = p.color(0,100,0);
         }
         if(gameState==LOSSSTOPPED){
-            p.image(images[15], x, y, side, side);
+            button = Hud.LOSSBUTTON;
+            background = p.color(150,0,0);
         }
-    }
-
-    private void drawSettingsButton(){
-
-        int side = ((p.height / 5) - (p.height / 30))/2;
-        int x = p.width/2-2*side-10;
-        int y = p.height/60;
-
-        p.image(images[16],x,y,side,side);
+        hud.draw(camera.getViewY(), background, (int) (board.getElapsedMillis() / 1000), numberBombs - board.getFlagCount(),
+                button, autoplay != null ? AUTOPLAYRATES[autoplayRate] : -1);
+        stats.stop(FrameStats.HUD, start);
     }
 
     /**
@@ -298,16 +774,22 @@ public class Game {
      */
     public void leftClick(int x, int y){
 
-        if(gameState == RUNNING) {
+        if(isReplaying()){
+            return;
+        }
 
-            if(startTime==0){
-                startTime = p.millis();
-            }
+        if(endless != null){
+            stats.record(FrameStats.TILESREVEALED, endless.leftClick(x, y));
+            return;
+        }
 
-            int r = (int) Math.floor((y - boardY) / ((double) tileSize));
-            int c = (int) Math.floor((x - boardX) / ((double) tileSize));
+        if(gameState == RUNNING && camera.contains(x, y)) {
+
+            int r = camera.rowAt(y);
+            int c = camera.colAt(x);
             if (r >= 0 && r < boardRows && c >= 0 && c < boardColumns) {
-                board.leftClick(r, c);
+                stopAutoplay();
+                leftClickTile(r, c);
             }
         }
 
@@ -325,7 +807,7 @@ public class Game {
             int yBlock = y/(p.height/5);
             if(xBlock == 1){
                 if(yBlock == 1){
-                    boardRows = Math.min(40, boardRows+1);
+                    boardRows = Math.min(MAXBOARDSIZE, boardRows+1);
                 }
                 if(yBlock == 3){
                     boardRows = Math.max(2, boardRows-1);
@@ -334,7 +816,7 @@ public class Game {
             }
             if(xBlock == 2){
                 if(yBlock == 1){
-                    boardColumns = Math.min(40, boardColumns+1);
+                    boardColumns = Math.min(MAXBOARDSIZE, boardColumns+1);
                 }
                 if(yBlock == 3){
                     boardColumns = Math.max(2, boardColumns -1);
@@ -370,22 +852,67 @@ public class Game {
     }
 
     /**
-     * Method that is called when left click hovering
+     * Left clicks a tile on the board, recording it in the journal along with the seed
+     * the bombs were placed with if the click placed them
+     * @param r row of the tile
+     * @param c column of the tile
+     */
+    private void leftClickTile(int r, int c){
+        boolean wereBombsSet = board.areBombsSet();
+        int from = r * boardColumns + c;
+        int revealed = board.leftClick(r, c, i -> animations.addSpread(Animations.REVEAL, i, boardColumns, camera, from, REVEALSTAGGER));
+        stats.record(FrameStats.TILESREVEALED, revealed);
+        if(journal != null){
+            if(!wereBombsSet && board.areBombsSet()){
+                journal.seed(board.getSeed());
+            }
+            journal.leftClick(r, c);
+        }
+    }
+
+    /**
+     * Makes a move chosen by the AI, recording it in the journal
+     * @param move the move
+     */
+    public void applyMove(Move move){
+        if(!move.isFlag()){
+            leftClickTile(move.getRow(), move.getColumn());
+            return;
+        }
+        board.aiRightClick(move.getRow(), move.getColumn());
+        animations.add(Animations.FLAG, move.getRow(), move.getColumn(), 0);
+        if(journal != null){
+            journal.flag(move.getRow(), move.getColumn());
+        }
+    }
+
+    /**
+     * Method that is called when left click hovering, which moves the hover to the tile under the mouse
      * @param x x location of the click
      * @param y y location of the click
      */
     public void hoverLeftClick(int x, int y){
 
-        if(gameState == RUNNING) {
+        if(isReplaying()){
+            return;
+        }
 
-            if(startTime==0){
-                startTime = p.millis();
-            }
+        if(endless != null){
+            endless.hoverLeftClick(x, y);
+            return;
+        }
 
-            int r = (int) Math.floor((y - boardY) / ((double) tileSize));
-            int c = (int) Math.floor((x - boardX) / ((double) tileSize));
-            if (r >= 0 && r < boardRows && c >= 0 && c < boardColumns) {
+        if(gameState == RUNNING) {
+
+            int r = camera.rowAt(y);
+            int c = camera.colAt(x);
+            if (camera.contains(x, y) && r >= 0 && r < boardRows && c >= 0 && c < boardColumns) {
                 board.hover(r, c);
+                if(journal != null){
+                    journal.hover(r, c);
+                }
+            }else{
+                unHoverBoard();
             }
         }
 
@@ -395,7 +922,24 @@ public class Game {
      * Unhovers all hovered tiles
      */
     public void unHoverAll(){
+        if(isReplaying()){
+            return;
+        }
+        if(endless != null){
+            endless.unHoverAll();
+            return;
+        }
+        unHoverBoard();
+    }
+
+    /**
+     * Unhovers every tile on the board, recording it in the journal
+     */
+    private void unHoverBoard(){
         board.unHoverAll();
+        if(journal != null){
+            journal.unHover();
+        }
     }
 
     /**
@@ -404,16 +948,27 @@ public class Game {
      * @param y y location of the click
      */
     public void rightClick(int x, int y){
-        if(gameState == RUNNING) {
+        if(isReplaying()){
+            return;
+        }
+        if(endless != null){
+            endless.rightClick(x, y);
+            return;
+        }
 
-            if(startTime==0){
-                startTime = p.millis();
-            }
+        if(gameState == RUNNING && camera.contains(x, y)) {
 
-            int r = (int) Math.floor((y - boardY) / ((double) tileSize));
-            int c = (int) Math.floor((x - boardX) / ((double) tileSize));
+            int r = camera.rowAt(y);
+            int c = camera.colAt(x);
             if (r >= 0 && r < boardRows && c >= 0 && c < boardColumns) {
+                stopAutoplay();
                 board.rightClick(r, c);
+                if(board.getTiles().isFlagged(r * boardColumns + c)){
+                    animations.add(Animations.FLAG, r, c, 0);
+                }
+                if(journal != null){
+                    journal.rightClick(r, c);
+                }
             }
         }
 
@@ -431,7 +986,7 @@ public class Game {
             int yBlock = y/(p.height/5);
             if(xBlock == 1){
                 if(yBlock == 1){
-                    boardRows = Math.min(40, boardRows+5);
+                    boardRows = Math.min(MAXBOARDSIZE, boardRows+5);
                 }
                 if(yBlock == 3){
                     boardRows = Math.max(2, boardRows-5);
@@ -440,7 +995,7 @@ public class Game {
             }
             if(xBlock == 2){
                 if(yBlock == 1){
-                    boardColumns = Math.min(40, boardColumns+5);
+                    boardColumns = Math.min(MAXBOARDSIZE, boardColumns+5);
                 }
                 if(yBlock == 3){
                     boardColumns = Math.max(2, boardColumns -5);
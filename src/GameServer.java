@@ -0,0 +1,669 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hosts many games at once over TCP, with no drawing. Each connection can hold many sessions, and each
+ * session is one board that belongs to the connection that made it, so no board is ever shared between threads.
+ * Connections are spread over a few event loops, one per core, that each wait on a selector for
+ * whichever of their connections have something to read, so tens of thousands of idle sessions cost
+ * memory but no threads. Sessions that have not been played for a while are dropped.
+ * <p>
+ * The protocol is one command per line, and one reply per command, in order:
+ * <pre>
+ * N rows columns bombs [seed]   starts a session        S id
+ * L id row column               left clicks a tile      C id state index:value ...
+ * F id row column               right clicks a tile     C id state index:value ...
+ * Q id                          ends a session          X id
+ * </pre>
+ * A reply to a click gives the game state and only the tiles the click changed, each as its index
+ * (row * columns + column) and what it now shows: the number of neighboring bombs, B for a bomb,
+ * F for a flag, ? for a question mark or # for a closed tile. The click that wins also gives every bomb,
+ * as the board flags them all. A bad command gets E and a message, as does a click on a game that is over,
+ * and boards may have at most MAXCELLS tiles. Every session is charged for the memory its board takes, and a
+ * new session gets E once its connection has MAXCONNECTIONBYTES charged to it, or the server has half its heap.
+ * A connection that sends commands faster than it reads the replies is not read from until it catches up,
+ * and a command that fails for any reason other than being bad closes only the connection that sent it
+ */
+public class GameServer {
+
+    /**The port the server listens on if none is given**/
+    public static final int DEFAULTPORT = 7777;
+
+    /**How long a session may go unplayed before it is dropped, if no other time is given**/
+    public static final long DEFAULTIDLEMILLIS = 60000;
+
+    /**How often the event loops look for idle sessions**/
+    private static final long SWEEPMILLIS = 1000;
+
+    /**The size of the buffer each connection reads commands into, which is the longest a command can be**/
+    private static final int INBYTES = 4096;
+
+    /**The size each connection's reply buffer starts at**/
+    private static final int OUTBYTES = 4096;
+
+    /**The most tiles a session's board may have, so that one command cannot use up the heap**/
+    public static final int MAXCELLS = 1 << 20;
+
+    /**The bytes a session is charged for on top of one per tile of its board, which roughly covers the objects it is made of**/
+    private static final int SESSIONBYTES = 512;
+
+    /**The most bytes of sessions one connection may hold**/
+    public static final long MAXCONNECTIONBYTES = 1L << 26;
+
+    /**The most reply bytes a connection may have waiting to be written before it stops being read from**/
+    private static final int MAXPENDINGBYTES = 1 << 20;
+
+    /**The channel that connections are accepted from**/
+    private ServerSocketChannel server;
+
+    /**The event loops that connections are spread over**/
+    private Loop[] loops;
+
+    /**How long a session may go unplayed before it is dropped**/
+    private long idleMillis;
+
+    /**The number of sessions being held**/
+    private AtomicInteger sessions;
+
+    /**The bytes charged for the sessions being held, and the most they may come to over every connection**/
+    private AtomicLong sessionBytes;
+    private long maxSessionBytes;
+
+    /**The number of clicks played, which every loop adds to**/
+    private LongAdder moves;
+
+    /**True until the server is stopped**/
+    private volatile boolean isRunning;
+
+    /**
+     * The constructor for a server that listens on a local port
+     * @param port the port, or 0 for any free port
+     * @param threads the number of event loops
+     * @param idleMillis how long a session may go unplayed before it is dropped
+     * @throws UncheckedIOException if the port cannot be listened on
+     */
+    public GameServer(int port, int threads, long idleMillis){
+        this.idleMillis = idleMillis;
+        this.sessions = new AtomicInteger();
+        this.sessionBytes = new AtomicLong();
+        this.maxSessionBytes = Runtime.getRuntime().maxMemory() / 2;
+        this.moves = new LongAdder();
+        try {
+            server = ServerSocketChannel.open();
+            server.bind(new InetSocketAddress("127.0.0.1", port), 1024);
+            loops = new Loop[threads];
+            for (int t = 0; t < threads; t++) {
+                loops[t] = new Loop();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Starts the event loops and accepting connections, each on its own daemon thread
+     */
+    public void start(){
+        isRunning = true;
+        for (int t = 0; t < loops.length; t++) {
+            Thread thread = new Thread(loops[t], "GameServer-loop-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        Thread acceptor = new Thread(this::accept, "GameServer-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Accepts connections until the server is stopped, handing them to the event loops in turn
+     */
+    private void accept(){
+        int next = 0;
+        while(isRunning){
+            try {
+                SocketChannel channel = server.accept();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                loops[next].add(channel);
+                next = (next + 1) % loops.length;
+            } catch (IOException e) {
+                if(isRunning){
+                    System.err.println("GameServer: " + e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops accepting connections and closes every one
+     */
+    public void stop(){
+        isRunning = false;
+        try {
+            server.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (Loop loop : loops) {
+            loop.selector.wakeup();
+        }
+    }
+
+    /**
+     * Returns the port the server listens on
+     * @return the port
+     */
+    public int getPort(){
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Returns the number of sessions being held
+     * @return the number of sessions
+     */
+    public int getSessions(){ return sessions.get(); }
+
+    /**
+     * Returns the number of clicks played since the server started
+     * @return the number of moves
+     */
+    public long getMoves(){ return moves.sum(); }
+
+    /**
+     * One game being played by a connection
+     */
+    private static class Session {
+
+        /**The board being played**/
+        Board board;
+
+        /**The time the session was last played**/
+        long lastPlayed;
+
+        /**The bytes the session is charged for**/
+        long bytes;
+
+    }
+
+    /**
+     * A client connected to the server, with the sessions it has started
+     */
+    private static class Connection {
+
+        /**The channel to the client**/
+        SocketChannel channel;
+
+        /**The commands read but not yet played**/
+        ByteBuffer in = ByteBuffer.allocate(INBYTES);
+
+        /**The replies not yet written, which grows to fit them**/
+        ByteBuffer out = ByteBuffer.allocate(OUTBYTES);
+
+        /**The connection's sessions by their id**/
+        HashMap<Integer, Session> sessions = new HashMap<>();
+
+        /**The id the next session will have**/
+        int nextId = 1;
+
+        /**The bytes charged for the connection's sessions**/
+        long sessionBytes;
+
+        /**The time the connection last sent a command**/
+        long lastActive;
+
+    }
+
+    /**
+     * A thread that serves its share of the connections, playing each command as soon as it is read
+     */
+    private class Loop implements Runnable {
+
+        /**The selector that the loop's connections are registered with**/
+        private Selector selector;
+
+        /**Connections that have been accepted but not yet registered, which the acceptor adds to**/
+        private ConcurrentLinkedQueue<SocketChannel> accepted;
+
+        /**The line being played and where in it the next value is read from**/
+        private ByteBuffer line;
+        private int cursor;
+        private int end;
+
+        /**
+         * The constructor for a loop with no connections
+         * @throws IOException if the selector cannot be opened
+         */
+        Loop() throws IOException {
+            selector = Selector.open();
+            accepted = new ConcurrentLinkedQueue<>();
+        }
+
+        /**
+         * Hands a connection to the loop, which registers it the next time it wakes
+         * @param channel the connection
+         */
+        void add(SocketChannel channel){
+            accepted.add(channel);
+            selector.wakeup();
+        }
+
+        /**
+         * Serves the loop's connections until the server is stopped
+         */
+        public void run(){
+            long lastSweep = System.currentTimeMillis();
+            try {
+                while(isRunning){
+                    selector.select(SWEEPMILLIS);
+                    SocketChannel channel;
+                    while((channel = accepted.poll()) != null){
+                        Connection connection = new Connection();
+                        connection.channel = channel;
+                        connection.lastActive = System.currentTimeMillis();
+                        channel.register(selector, SelectionKey.OP_READ, connection);
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while(keys.hasNext()){
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        serve(key);
+                    }
+                    long now = System.currentTimeMillis();
+                    if(now - lastSweep >= SWEEPMILLIS){
+                        sweep(now);
+                        lastSweep = now;
+                    }
+                }
+                for (SelectionKey key : selector.keys()) {
+                    close(key);
+                }
+                selector.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Reads and plays whatever a connection has sent, and writes what replies it can
+         * @param key the connection's key
+         */
+        private void serve(SelectionKey key){
+            Connection connection = (Connection) key.attachment();
+            try {
+                if(key.isReadable()){
+                    if(connection.channel.read(connection.in) < 0){
+                        close(key);
+                        return;
+                    }
+                    connection.lastActive = System.currentTimeMillis();
+                    if(!playLines(connection)){
+                        close(key);
+                        return;
+                    }
+                }
+                connection.out.flip();
+                connection.channel.write(connection.out);
+                boolean isUnwritten = connection.out.hasRemaining();
+                connection.out.compact();
+                //stop reading from a client that is not reading its replies until they have been written
+                int reading = connection.out.position() > MAXPENDINGBYTES ? 0 : SelectionKey.OP_READ;
+                key.interestOps(isUnwritten ? reading | SelectionKey.OP_WRITE : reading);
+            } catch (IOException e) {
+                close(key);
+            }
+        }
+
+        /**
+         * Plays every whole line that a connection has sent
+         * @param connection the connection
+         * @return false if the connection sent a line too long to be a command, or a command failed to play
+         */
+        private boolean playLines(Connection connection){
+            ByteBuffer in = connection.in;
+            in.flip();
+            int start = in.position();
+            for (int i = start; i < in.limit(); i++) {
+                if(in.get(i) == '\n'){
+                    line = in;
+                    cursor = start;
+                    end = i;
+                    if(!play(connection)){
+                        return false;
+                    }
+                    start = i + 1;
+                }
+            }
+            in.position(start);
+            in.compact();
+            return in.hasRemaining();
+        }
+
+        /**
+         * Plays the line between cursor and end, and puts its reply in the connection's reply buffer.
+         * A bad command is replied to with an error, and any other failure is kept to this connection
+         * rather than being let out to stop the loop
+         * @param connection the connection that sent the line
+         * @return false if the command failed and the connection should be closed
+         */
+        private boolean play(Connection connection){
+            skipSpaces();
+            if(cursor >= end){
+                return true;
+            }
+            byte command = line.get(cursor++);
+            try {
+                switch (command) {
+                    case 'N':
+                        newSession(connection);
+                        break;
+                    case 'L':
+                    case 'F':
+                        click(connection, command == 'L');
+                        break;
+                    case 'Q':
+                        int id = (int) nextLong();
+                        Session ended = connection.sessions.remove(id);
+                        if(ended != null){
+                            release(connection, ended);
+                        }
+                        reply(connection, 2 + 11).put((byte) 'X').put((byte) ' ');
+                        putInt(connection.out, id);
+                        connection.out.put((byte) '\n');
+                        break;
+                    default:
+                        error(connection, "unknown command");
+                }
+            } catch (IllegalArgumentException e) {
+                error(connection, e.getMessage());
+            } catch (RuntimeException | OutOfMemoryError e) {
+                System.err.println("GameServer: closing a connection whose command failed: " + e);
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Starts a session from an N command
+         * @param connection the connection that sent it
+         */
+        private void newSession(Connection connection){
+            long rows = nextLong();
+            long columns = nextLong();
+            long bombs = nextLong();
+            if(rows < 1 || columns < 1 || bombs < 0 || rows > MAXCELLS || columns > MAXCELLS || bombs >= rows * columns){
+                throw new IllegalArgumentException("bad board size");
+            }
+            if(rows * columns > MAXCELLS){
+                throw new IllegalArgumentException("board over " + MAXCELLS + " tiles");
+            }
+            skipSpaces();
+            boolean isSeeded = cursor < end;
+            long seed = isSeeded ? nextLong() : 0;
+            Session session = new Session();
+            session.bytes = SESSIONBYTES + rows * columns;
+            if(connection.sessionBytes + session.bytes > MAXCONNECTIONBYTES){
+                throw new IllegalArgumentException("too many sessions on this connection");
+            }
+            if(sessionBytes.addAndGet(session.bytes) > maxSessionBytes){
+                sessionBytes.addAndGet(-session.bytes);
+                throw new IllegalArgumentException("server is full");
+            }
+            try {
+                session.board = isSeeded
+                        ? new Board((int) rows, (int) columns, (int) bombs, seed, Clock.SYSTEM)
+                        : new Board((int) rows, (int) columns, (int) bombs);
+            } catch (RuntimeException | OutOfMemoryError e) {
+                sessionBytes.addAndGet(-session.bytes);
+                throw e;
+            }
+            connection.sessionBytes += session.bytes;
+            session.lastPlayed = connection.lastActive;
+            int id = connection.nextId++;
+            connection.sessions.put(id, session);
+            sessions.incrementAndGet();
+            reply(connection, 2 + 11).put((byte) 'S').put((byte) ' ');
+            putInt(connection.out, id);
+            connection.out.put((byte) '\n');
+        }
+
+        /**
+         * Plays an L or F command, replying with the tiles it changed
+         * @param connection the connection that sent it
+         * @param isLeft true for a left click, false for a right click
+         */
+        private void click(Connection connection, boolean isLeft){
+            int id = (int) nextLong();
+            int r = (int) nextLong();
+            int c = (int) nextLong();
+            Session session = connection.sessions.get(id);
+            if(session == null){
+                throw new IllegalArgumentException("no session " + id);
+            }
+            Board board = session.board;
+            if(board.getGameState() != Board.RUNNING){
+                throw new IllegalArgumentException("game " + id + " is over");
+            }
+            TileStore tiles = board.getTiles();
+            session.lastPlayed = connection.lastActive;
+            moves.increment();
+            if(isLeft){
+                IntList revealed = new IntList();
+                board.leftClick(r, c, revealed::add);
+                int state = board.getGameState();
+                //only this click can have won the game, as clicks on a game that is over are turned away
+                boolean isWon = state == Board.WINSTOPPED;
+                ByteBuffer out = header(connection, id, state, (revealed.size() + (isWon ? board.getNumBombs() : 0)) * 13);
+                for (int k = 0; k < revealed.size(); k++) {
+                    int i = revealed.get(k);
+                    out.put((byte) ' ');
+                    putInt(out, i);
+                    out.put((byte) ':').put(tiles.checkIfBomb(i) ? (byte) 'B' : (byte) ('0' + tiles.getNumNeighboringBombs(i)));
+                }
+                if(isWon){
+                    //winning flags every bomb, so they have changed too
+                    int size = board.getRows() * board.getColumns();
+                    for (int i = 0; i < size; i++) {
+                        if(tiles.checkIfBomb(i)){
+                            out.put((byte) ' ');
+                            putInt(out, i);
+                            out.put((byte) ':').put((byte) 'F');
+                        }
+                    }
+                }
+            }else{
+                boolean isOnBoard = r >= 0 && r < board.getRows() && c >= 0 && c < board.getColumns();
+                int i = r * board.getColumns() + c;
+                boolean isChanged = isOnBoard && !tiles.isOpen(i);
+                board.rightClick(r, c);
+                ByteBuffer out = header(connection, id, board.getGameState(), 13);
+                if(isChanged){
+                    out.put((byte) ' ');
+                    putInt(out, i);
+                    out.put((byte) ':').put(tiles.isFlagged(i) ? (byte) 'F' : tiles.isQuestioned(i) ? (byte) '?' : (byte) '#');
+                }
+            }
+            connection.out.put((byte) '\n');
+        }
+
+        /**
+         * Starts the reply to a click
+         * @param connection the connection to reply to
+         * @param id the session
+         * @param state the game state after the click
+         * @param cellBytes the most bytes the changed tiles will take
+         * @return the reply buffer
+         */
+        private ByteBuffer header(Connection connection, int id, int state, int cellBytes){
+            ByteBuffer out = reply(connection, 2 + 11 + 2 + cellBytes + 1);
+            out.put((byte) 'C').put((byte) ' ');
+            putInt(out, id);
+            out.put((byte) ' ').put((byte) ('0' + state));
+            return out;
+        }
+
+        /**
+         * Replies to a bad command
+         * @param connection the connection that sent it
+         * @param message what was wrong with it
+         */
+        private void error(Connection connection, String message){
+            byte[] bytes = String.valueOf(message).getBytes(StandardCharsets.US_ASCII);
+            reply(connection, 3 + bytes.length).put((byte) 'E').put((byte) ' ').put(bytes).put((byte) '\n');
+        }
+
+        /**
+         * Makes room in a connection's reply buffer, growing it if it is too small
+         * @param connection the connection
+         * @param bytes the number of bytes needed
+         * @return the reply buffer
+         */
+        private ByteBuffer reply(Connection connection, int bytes){
+            if(connection.out.remaining() < bytes){
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(connection.out.capacity() * 2, connection.out.position() + bytes));
+                connection.out.flip();
+                bigger.put(connection.out);
+                connection.out = bigger;
+            }
+            return connection.out;
+        }
+
+        /**
+         * Skips the spaces at the cursor
+         */
+        private void skipSpaces(){
+            while(cursor < end && (line.get(cursor) == ' ' || line.get(cursor) == '\r')){
+                cursor++;
+            }
+        }
+
+        /**
+         * Reads a number at the cursor
+         * @return the number
+         * @throws IllegalArgumentException if there is no number at the cursor
+         */
+        private long nextLong(){
+            skipSpaces();
+            boolean isNegative = cursor < end && line.get(cursor) == '-';
+            if(isNegative){
+                cursor++;
+            }
+            int start = cursor;
+            long value = 0;
+            while(cursor < end && line.get(cursor) >= '0' && line.get(cursor) <= '9' && cursor - start < 19){
+                value = value * 10 + (line.get(cursor++) - '0');
+            }
+            if(cursor == start){
+                throw new IllegalArgumentException("expected a number");
+            }
+            return isNegative ? -value : value;
+        }
+
+        /**
+         * Drops the sessions that have gone unplayed for too long, and closes connections that are left
+         * with no sessions and have sent nothing for as long
+         * @param now the time
+         */
+        private void sweep(long now){
+            for (SelectionKey key : selector.keys()) {
+                Connection connection = (Connection) key.attachment();
+                Iterator<Session> it = connection.sessions.values().iterator();
+                while(it.hasNext()){
+                    Session session = it.next();
+                    if(now - session.lastPlayed > idleMillis){
+                        it.remove();
+                        release(connection, session);
+                    }
+                }
+                if(connection.sessions.isEmpty() && now - connection.lastActive > idleMillis){
+                    close(key);
+                }
+            }
+        }
+
+        /**
+         * Takes a session that has been dropped off the counts of sessions and of the bytes they are charged for
+         * @param connection the connection that held the session
+         * @param session the session
+         */
+        private void release(Connection connection, Session session){
+            sessions.decrementAndGet();
+            sessionBytes.addAndGet(-session.bytes);
+            connection.sessionBytes -= session.bytes;
+        }
+
+        /**
+         * Closes a connection and drops its sessions
+         * @param key the connection's key
+         */
+        private void close(SelectionKey key){
+            Connection connection = (Connection) key.attachment();
+            for (Session session : connection.sessions.values()) {
+                release(connection, session);
+            }
+            connection.sessions.clear();
+            key.cancel();
+            try {
+                connection.channel.close();
+            } catch (IOException e) {
+                //the connection is gone either way
+            }
+        }
+
+    }
+
+    /**
+     * Writes a number in decimal without making a string
+     * @param out the buffer to write to
+     * @param value the number
+     */
+    private static void putInt(ByteBuffer out, int value){
+        if(value < 0){
+            out.put((byte) '-');
+            value = -value;
+        }
+        int divisor = 1;
+        while(value / divisor >= 10){
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.put((byte) ('0' + (value / divisor) % 10));
+        }
+    }
+
+    /**
+     * Runs a server until the process is killed, printing how busy it is every few seconds
+     * @param args the port (default DEFAULTPORT), the number of event loops (default one per core)
+     *             and how many seconds a session may go unplayed (default 60)
+     * @throws InterruptedException if the main thread is interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULTPORT;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long idleMillis = args.length > 2 ? Long.parseLong(args[2]) * 1000 : DEFAULTIDLEMILLIS;
+        GameServer server = new GameServer(port, threads, idleMillis);
+        server.start();
+        System.out.println("Listening on 127.0.0.1:" + server.getPort() + " with " + threads + " event loops");
+        long lastMoves = 0;
+        while(true){
+            Thread.sleep(5000);
+            long moves = server.getMoves();
+            System.out.printf("%d sessions, %.0f moves/s%n", server.getSessions(), (moves - lastMoves) / 5.0);
+            lastMoves = moves;
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+import processing.core.PApplet;
+import processing.core.PGraphics;
+
+/**
+ * Draws the counters and buttons above the board, and the settings menu, from layers that are kept
+ * drawn offscreen. A layer is redrawn only when something it shows has changed, such as the seconds on
+ * the timer or the number of bombs left, so a frame in which nothing has changed costs one copy of the layer.
+ * The layers are opaque and take the place of clearing the screen they cover. They are copied onto the
+ * screen with set, which copies the pixels straight across rather than blending them as image does,
+ * so copying a layer costs less than clearing the screen it covers would
+ */
+public class Hud {
+
+    /**The images of the reset button, by the state the game is in, or -1 for no button**/
+    public static final int NOBUTTON = -1;
+    public static final int RESETBUTTON = 13;
+    public static final int WINBUTTON = 14;
+    public static final int LOSSBUTTON = 15;
+
+    /**The PApplet the layers are made with and drawn to**/
+    private PApplet p;
+
+    /**The resized images, which the buttons are drawn from**/
+    private SpriteCache sprites;
+
+    /**The layer of the counters and buttons, which covers the screen above the board**/
+    private PGraphics top;
+
+    /**The values the top layer was drawn with, so it is redrawn only once one changes**/
+    private int drawnSeconds;
+    private int drawnBombsLeft;
+    private int drawnButton;
+    private int drawnAutoplayRate;
+    private int drawnBackground;
+
+    /**The layer of the settings menu, which covers the whole screen**/
+    private PGraphics settings;
+
+    /**The values the settings layer was drawn with**/
+    private int drawnRows;
+    private int drawnColumns;
+    private int drawnBombs;
+    private boolean wasNoGuess;
+
+    /**
+     * The constructor for a HUD whose layers have not been drawn
+     * @param p the PApplet the layers are made with and drawn to
+     * @param sprites the resized images
+     */
+    public Hud(PApplet p, SpriteCache sprites){
+        this.p = p;
+        this.sprites = sprites;
+        invalidate();
+    }
+
+    /**
+     * Makes both layers be redrawn before they are next drawn, as when the sizes the sprites are cached at change
+     */
+    public void invalidate(){
+        drawnSeconds = Integer.MIN_VALUE;
+        drawnRows = -1;
+    }
+
+    /**
+     * Clears the screen to a color and draws the timer, the count of bombs left, the reset and settings
+     * buttons and the autoplay rate over it, redrawing their layer first if any of them has changed
+     * @param height the height of the screen above the board that the layer covers
+     * @param background the color the screen is cleared to
+     * @param seconds the seconds on the timer
+     * @param bombsLeft the number of bombs less the number of flags
+     * @param button the image of the reset button, or NOBUTTON
+     * @param autoplayRate the moves per second autoplay plays at, 0 if as fast as possible, or -1 if it is not playing
+     */
+    public void draw(int height, int background, int seconds, int bombsLeft, int button, int autoplayRate){
+        if(top == null || top.width != p.width || top.height != height){
+            top = p.createGraphics(p.width, height);
+            drawnSeconds = Integer.MIN_VALUE;
+        }
+        if(seconds != drawnSeconds || bombsLeft != drawnBombsLeft || button != drawnButton
+                || autoplayRate != drawnAutoplayRate || background != drawnBackground){
+            drawnBackground = background;
+            drawnSeconds = seconds;
+            drawnBombsLeft = bombsLeft;
+            drawnButton = button;
+            drawnAutoplayRate = autoplayRate;
+            top.beginDraw();
+            top.background(background);
+            top.noStroke();
+            top.fill(255);
+
+            top.textSize(60);
+            top.text(bombsLeft, 50, p.height/10);
+            top.textSize(30);
+            top.text("BOMBS", 50, p.height/10+40);
+
+            int textWidth = 45*Integer.toString(seconds).length();
+            top.textSize(60);
+            top.text(seconds, p.width-50-textWidth, p.height/10);
+            top.textSize(30);
+            top.text("TIMER", p.width-140,p.height/10+40);
+
+            if(autoplayRate >= 0){
+                top.textSize(16);
+                top.text("AUTO " + (autoplayRate == 0 ? "MAX" : autoplayRate + "/s"), 50, p.height/10+65);
+            }
+
+            int side = (p.height / 5) - (p.height / 30);
+            if(button != NOBUTTON){
+                sprites.draw(top, button, p.width/2-side/2, p.height/60);
+            }
+            sprites.draw(top, 16, p.width/2-2*(side/2)-10, p.height/60);
+            top.endDraw();
+            top.loadPixels();
+        }
+        p.set(0, 0, top);
+        p.noStroke();
+        p.fill(background);
+        p.rect(0, height, p.width, p.height - height);
+    }
+
+    /**
+     * Draws the settings menu over the whole screen, redrawing its layer first if any of the settings has changed
+     * @param rows the number of rows
+     * @param columns the number of columns
+     * @param bombs the number of bombs
+     * @param isNoGuess true if boards that need no guessing are turned on
+     */
+    public void drawSettings(int rows, int columns, int bombs, boolean isNoGuess){
+        if(settings == null || settings.width != p.width || settings.height != p.height){
+            settings = p.createGraphics(p.width, p.height);
+            drawnRows = -1;
+        }
+        if(rows != drawnRows || columns != drawnColumns || bombs != drawnBombs || isNoGuess != wasNoGuess){
+            drawnRows = rows;
+            drawnColumns = columns;
+            drawnBombs = bombs;
+            wasNoGuess = isNoGuess;
+            settings.beginDraw();
+            settings.background(0);
+            settings.noStroke();
+            settings.fill(255,255,255);
+            int side = ((p.height / 5) - (p.height / 30))/2;
+            sprites.draw(settings, 16, p.width/2-2*side-10, p.height/60);
+            settings.textSize(16);
+            settings.text("Left click to increment/decrement by one\nRight click to increment/decrement by 5"
+                    + "\nPress n to turn no guessing " + (isNoGuess ? "off" : "on"),p.width/2,25);
+            settings.textSize(20);
+            settings.text("Rows",p.width/5f,2*p.height/5f + p.height/25f);
+            settings.text("Columns",2*p.width/5f,2*p.height/5f + p.height/25f);
+            settings.text("Bombs",3*p.width/5f,2*p.height/5f + p.height/25f);
+            settings.textSize(40);
+            settings.text(rows,p.width/5f,2*p.height/5f + p.height/10f);
+            settings.text(columns,2*p.width/5f,2*p.height/5f + p.height/10f);
+            settings.text(bombs,3*p.width/5f,2*p.height/5f + p.height/10f);
+            for (int i = 1; i <= 3; i++) {
+                settings.triangle(i*p.width/5f,2*p.height/5f,(i+1)*p.width/5f,2*p.height/5f,(2*i+1)*p.width/10f,p.height/5f);
+            }
+            for (int i = 1; i <= 3; i++) {
+                settings.triangle(i*p.width/5f,3*p.height/5f,(i+1)*p.width/5f,3*p.height/5f,(2*i+1)*p.width/10f,4*p.height/5f);
+            }
+            settings.endDraw();
+            settings.loadPixels();
+        }
+        p.set(0, 0, settings);
+    }
+
+}
@@ -0,0 +1,191 @@
+/**
+ * The queue that the sketch's mouse and key events are put on, so that they change the game only at the
+ * start of a frame and never while it is being drawn. Events that only matter for where they end up are
+ * merged as they are queued: a hover replaces a hover queued just before it, and pans and zooms queued
+ * one after another add up, so however fast the mouse reports moving the queue holds one of each.
+ * The queue is a ring of ints that grows only if clicks and keys pile up, and it can be added to from any thread
+ */
+public class InputQueue {
+
+    /**The types of command**/
+    public static final int LEFTCLICK = 1;
+    public static final int RIGHTCLICK = 2;
+    public static final int HOVER = 3;
+    public static final int UNHOVER = 4;
+    public static final int PAN = 5;
+    public static final int ZOOM = 6;
+    public static final int SCROLL = 7;
+    public static final int AITURN = 8;
+    public static final int NOGUESS = 9;
+    public static final int OVERLAY = 10;
+    public static final int ENDLESS = 11;
+    public static final int AUTOPLAY = 12;
+    public static final int SLOWER = 13;
+    public static final int FASTER = 14;
+
+    /**The number of ints each command takes, which are its type and up to three values**/
+    private static final int INTSPERCOMMAND = 4;
+
+    /**The commands, INTSPERCOMMAND ints each, from head around to tail**/
+    private int[] commands;
+
+    /**The index of the first int of the oldest command**/
+    private int head;
+
+    /**The number of commands queued**/
+    private int size;
+
+    /**The values of the command taken last by poll**/
+    private int type;
+    private int a;
+    private int b;
+    private int c;
+
+    /**
+     * The constructor for an empty queue
+     */
+    public InputQueue(){
+        commands = new int[64 * INTSPERCOMMAND];
+    }
+
+    /**
+     * Queues a command, merging it into the newest one if both are hovers, pans or zooms
+     * @param type the type of command
+     * @param a the first value
+     * @param b the second value
+     * @param c the third value
+     */
+    private synchronized void add(int type, int a, int b, int c){
+        if(size > 0){
+            int last = (head + (size - 1) * INTSPERCOMMAND) % commands.length;
+            if(commands[last] == type){
+                if(type == HOVER){
+                    commands[last + 1] = a;
+                    commands[last + 2] = b;
+                    return;
+                }
+                if(type == PAN){
+                    commands[last + 1] += a;
+                    commands[last + 2] += b;
+                    return;
+                }
+                if(type == ZOOM){
+                    commands[last + 1] += a;
+                    commands[last + 2] = b;
+                    commands[last + 3] = c;
+                    return;
+                }
+            }
+        }
+        if(size * INTSPERCOMMAND == commands.length){
+            int[] bigger = new int[commands.length * 2];
+            for (int k = 0; k < size * INTSPERCOMMAND; k++) {
+                bigger[k] = commands[(head + k) % commands.length];
+            }
+            commands = bigger;
+            head = 0;
+        }
+        int tail = (head + size * INTSPERCOMMAND) % commands.length;
+        commands[tail] = type;
+        commands[tail + 1] = a;
+        commands[tail + 2] = b;
+        commands[tail + 3] = c;
+        size++;
+    }
+
+    /**
+     * Takes the oldest command off the queue, whose values can then be read with the getters
+     * @return false if the queue was empty
+     */
+    public synchronized boolean poll(){
+        if(size == 0){
+            return false;
+        }
+        type = commands[head];
+        a = commands[head + 1];
+        b = commands[head + 2];
+        c = commands[head + 3];
+        head = (head + INTSPERCOMMAND) % commands.length;
+        size--;
+        return true;
+    }
+
+    /**
+     * Returns the number of commands queued
+     * @return the number of commands
+     */
+    public synchronized int size(){ return size; }
+
+    /**
+     * Queues a left click
+     * @param x x location of the click
+     * @param y y location of the click
+     */
+    public void leftClick(int x, int y){ add(LEFTCLICK, x, y, 0); }
+
+    /**
+     * Queues a right click
+     * @param x x location of the click
+     * @param y y location of the click
+     */
+    public void rightClick(int x, int y){ add(RIGHTCLICK, x, y, 0); }
+
+    /**
+     * Queues moving the hover to the tile under the mouse
+     * @param x x location of the mouse
+     * @param y y location of the mouse
+     */
+    public void hover(int x, int y){ add(HOVER, x, y, 0); }
+
+    /**
+     * Queues unhovering every tile
+     */
+    public void unHover(){ add(UNHOVER, 0, 0, 0); }
+
+    /**
+     * Queues moving the board across the screen
+     * @param dx the number of pixels to move the board right
+     * @param dy the number of pixels to move the board down
+     */
+    public void pan(int dx, int dy){ add(PAN, dx, dy, 0); }
+
+    /**
+     * Queues zooming around the mouse
+     * @param steps the number of steps to zoom in, or out if negative
+     * @param x x location of the mouse
+     * @param y y location of the mouse
+     */
+    public void zoom(int steps, int x, int y){ add(ZOOM, steps, x, y); }
+
+    /**
+     * Queues moving the view by whole tiles
+     * @param rows the number of rows to move the view down
+     * @param cols the number of columns to move the view right
+     */
+    public void scroll(int rows, int cols){ add(SCROLL, rows, cols, 0); }
+
+    /**
+     * Queues a command that has no values
+     * @param type AITURN, NOGUESS, OVERLAY, ENDLESS, AUTOPLAY, SLOWER or FASTER
+     */
+    public void command(int type){ add(type, 0, 0, 0); }
+
+    /**Returns the type of the command taken last
+     * @return the type**/
+    public int getType(){ return type; }
+
+    /**Returns the first value of the command taken last, which is x for clicks and hovers,
+     * dx for pans, the steps for zooms and the rows for scrolls
+     * @return the value**/
+    public int getA(){ return a; }
+
+    /**Returns the second value of the command taken last, which is y for clicks and hovers,
+     * dy for pans, x for zooms and the columns for scrolls
+     * @return the value**/
+    public int getB(){ return b; }
+
+    /**Returns the third value of the command taken last, which is y for zooms
+     * @return the value**/
+    public int getC(){ return c; }
+
+}
@@ -0,0 +1,82 @@
+import java.util.Arrays;
+
+/**
+ * A growable list of ints that does not box its values, used to hold
+ * tile indices (row * columns + column) and work queues
+ */
+public class IntList {
+
+    /**The values in the list, of which only the first size are used**/
+    private int[] values;
+
+    /**The number of values in the list**/
+    private int size;
+
+    /**
+     * The default constructor for an empty list
+     */
+    public IntList(){
+        this(16);
+    }
+
+    /**
+     * The constructor for an empty list with room for some values
+     * @param capacity the number of values the list can hold before it grows
+     */
+    public IntList(int capacity){
+        values = new int[Math.max(capacity, 1)];
+        size = 0;
+    }
+
+    /**
+     * Adds a value to the end of the list
+     * @param value the value to add
+     */
+    public void add(int value){
+        if(size == values.length){
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Removes and returns the last value in the list, so the list can be used as a stack
+     * @return the last value
+     */
+    public int pop(){
+        return values[--size];
+    }
+
+    /**
+     * Returns a value in the list
+     * @param i the position of the value
+     * @return the value at that position
+     */
+    public int get(int i){
+        return values[i];
+    }
+
+    /**
+     * Returns the number of values in the list
+     * @return the size of the list
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Returns true if the list has no values
+     * @return if the list is empty
+     */
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * Removes every value from the list, keeping its capacity
+     */
+    public void clear(){
+        size = 0;
+    }
+
+}
@@ -0,0 +1,358 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An append-only record of everything the player does to the game, which can be replayed to play
+ * the same games again. Each event is a type byte, the milliseconds since the event before it, and
+ * the event's values, so a click is 13 bytes. New boards are recorded with their seed, and the seed the
+ * bombs are actually placed with is recorded at the first click, since a board that needs no guessing
+ * searches for its seed against the clock and may not find the same one twice.
+ * Events are gathered in a buffer and written to the end of the file when it fills or is flushed
+ */
+public class Journal {
+
+    /**The types of event**/
+    public static final int BOARD = 1;
+    public static final int SEED = 2;
+    public static final int LEFTCLICK = 3;
+    public static final int RIGHTCLICK = 4;
+    public static final int FLAG = 5;
+    public static final int HOVER = 6;
+    public static final int UNHOVER = 7;
+    public static final int SETTINGS = 8;
+
+    /**The first 4 bytes of a journal, "MSWJ"**/
+    private static final int MAGIC = 0x4A57534D;
+
+    /**The version of the format, which is changed whenever the format is**/
+    private static final int VERSION = 1;
+
+    /**The size of the header, which is the magic then the version**/
+    private static final int HEADERBYTES = 8;
+
+    /**The most bytes any event takes**/
+    private static final int MAXEVENTBYTES = 32;
+
+    /**The size of the buffer that events are gathered in**/
+    private static final int BUFFERBYTES = 8192;
+
+    /**The file being written to**/
+    private FileChannel channel;
+
+    /**The clock that events are timed with**/
+    private Clock clock;
+
+    /**The time of the last event**/
+    private long lastMillis;
+
+    /**The buffer that events are gathered in before they are written**/
+    private ByteBuffer buffer;
+
+    /**The tile that was last recorded as hovered, so moving within a tile is not recorded, or -1 for none**/
+    private int hoveredRow;
+    private int hoveredColumn;
+
+    /**
+     * The constructor for a journal that writes to a file
+     * @param path the file to write to
+     * @param clock the clock that events are timed with
+     * @param append true to add to the end of the file, or false to start it again
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    public Journal(Path path, Clock clock, boolean append){
+        this.clock = clock;
+        this.lastMillis = clock.millis();
+        this.buffer = ByteBuffer.allocate(BUFFERBYTES).order(ByteOrder.LITTLE_ENDIAN);
+        this.hoveredRow = -1;
+        this.hoveredColumn = -1;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+            if(channel.size() == 0){
+                buffer.putInt(MAGIC).putInt(VERSION);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Starts an event, making room for it in the buffer
+     * @param type the type of event
+     * @return the buffer to put the event's values in
+     */
+    private ByteBuffer begin(int type){
+        if(buffer.remaining() < MAXEVENTBYTES){
+            flush();
+        }
+        long now = clock.millis();
+        buffer.put((byte) type).putInt((int) Math.min(Integer.MAX_VALUE, Math.max(0, now - lastMillis)));
+        lastMillis = now;
+        return buffer;
+    }
+
+    /**
+     * Records a new board
+     * @param board the board, which has not been clicked
+     */
+    public void board(Board board){
+        begin(BOARD).putInt(board.getRows()).putInt(board.getColumns()).putInt(board.getNumBombs())
+                .putLong(board.getSeed()).put((byte) (board.isSafeOpening() ? 1 : 0));
+        hoveredRow = -1;
+    }
+
+    /**
+     * Records the seed that a board's bombs were placed with
+     * @param seed the seed
+     */
+    public void seed(long seed){
+        begin(SEED).putLong(seed);
+    }
+
+    /**
+     * Records a left click on a tile
+     * @param r the row
+     * @param c the column
+     */
+    public void leftClick(int r, int c){
+        begin(LEFTCLICK).putInt(r).putInt(c);
+    }
+
+    /**
+     * Records a right click on a tile
+     * @param r the row
+     * @param c the column
+     */
+    public void rightClick(int r, int c){
+        begin(RIGHTCLICK).putInt(r).putInt(c);
+    }
+
+    /**
+     * Records a tile being flagged by the AI
+     * @param r the row
+     * @param c the column
+     */
+    public void flag(int r, int c){
+        begin(FLAG).putInt(r).putInt(c);
+    }
+
+    /**
+     * Records the hover moving to a tile, unless it is already there
+     * @param r the row
+     * @param c the column
+     */
+    public void hover(int r, int c){
+        if(r != hoveredRow || c != hoveredColumn){
+            begin(HOVER).putInt(r).putInt(c);
+            hoveredRow = r;
+            hoveredColumn = c;
+        }
+    }
+
+    /**
+     * Records every tile being unhovered, unless none is hovered
+     */
+    public void unHover(){
+        if(hoveredRow != -1 || hoveredColumn != -1){
+            begin(UNHOVER);
+            hoveredRow = -1;
+            hoveredColumn = -1;
+        }
+    }
+
+    /**
+     * Records the settings that the next board will be made with
+     * @param rows the number of rows
+     * @param columns the number of columns
+     * @param numBombs the number of bombs
+     * @param noGuess true if boards that need no guessing are made
+     */
+    public void settings(int rows, int columns, int numBombs, boolean noGuess){
+        begin(SETTINGS).putInt(rows).putInt(columns).putInt(numBombs).put((byte) (noGuess ? 1 : 0));
+    }
+
+    /**
+     * Writes the events in the buffer to the end of the file
+     * @throws UncheckedIOException if they cannot be written
+     */
+    public void flush(){
+        buffer.flip();
+        try {
+            while(buffer.hasRemaining()){
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes any events left in the buffer and closes the file
+     * @throws UncheckedIOException if they cannot be written
+     */
+    public void close(){
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the events in a journal one at a time, from a mapping of the whole file
+     */
+    public static class Reader {
+
+        /**The mapped file**/
+        private MappedByteBuffer map;
+
+        /**The time of the event that was read last, in milliseconds from the start of the journal**/
+        private long time;
+
+        /**The values of the event that was read last, which are only those its type has**/
+        private int type;
+        private int row;
+        private int column;
+        private int rows;
+        private int columns;
+        private int numBombs;
+        private long seed;
+        private boolean flag;
+
+        /**
+         * The constructor for a reader at the start of a journal
+         * @param path the journal
+         * @throws IllegalStateException if the file is not a journal this version can read
+         * @throws UncheckedIOException if the file cannot be read
+         */
+        public Reader(Path path){
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if(map.remaining() < HEADERBYTES || map.getInt() != MAGIC || map.getInt() != VERSION){
+                throw new IllegalStateException("Not a journal: " + path);
+            }
+        }
+
+        /**
+         * Returns whether there is another event, which there is not if the journal ends partway through one
+         * @return true if next can be called
+         */
+        public boolean hasNext(){
+            if(map.remaining() < 5){
+                return false;
+            }
+            return map.remaining() >= 5 + valueBytes(map.get(map.position()));
+        }
+
+        /**
+         * Returns the time of the next event without reading it
+         * @return the time in milliseconds from the start of the journal
+         */
+        public long nextTime(){
+            return time + map.getInt(map.position() + 1);
+        }
+
+        /**
+         * Reads the next event
+         * @throws IllegalStateException if the event is of a type this version does not know
+         */
+        public void next(){
+            type = map.get();
+            time += map.getInt();
+            switch (type) {
+                case BOARD:
+                    rows = map.getInt();
+                    columns = map.getInt();
+                    numBombs = map.getInt();
+                    seed = map.getLong();
+                    flag = map.get() != 0;
+                    break;
+                case SEED:
+                    seed = map.getLong();
+                    break;
+                case LEFTCLICK:
+                case RIGHTCLICK:
+                case FLAG:
+                case HOVER:
+                    row = map.getInt();
+                    column = map.getInt();
+                    break;
+                case UNHOVER:
+                    break;
+                case SETTINGS:
+                    rows = map.getInt();
+                    columns = map.getInt();
+                    numBombs = map.getInt();
+                    flag = map.get() != 0;
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown journal event: " + type);
+            }
+        }
+
+        /**
+         * Returns the number of bytes of values that an event of a type has
+         * @param type the type of event
+         * @return the number of bytes after the type and time
+         */
+        private static int valueBytes(int type){
+            switch (type) {
+                case BOARD: return 21;
+                case SEED: return 8;
+                case SETTINGS: return 13;
+                case UNHOVER: return 0;
+                default: return 8;
+            }
+        }
+
+        /**Returns the type of the event
+         * @return BOARD, SEED, LEFTCLICK, RIGHTCLICK, FLAG, HOVER, UNHOVER or SETTINGS**/
+        public int getType(){ return type; }
+
+        /**Returns the time of the event
+         * @return the time in milliseconds from the start of the journal**/
+        public long getTime(){ return time; }
+
+        /**Returns the row of a click, flag or hover
+         * @return the row**/
+        public int getRow(){ return row; }
+
+        /**Returns the column of a click, flag or hover
+         * @return the column**/
+        public int getColumn(){ return column; }
+
+        /**Returns the number of rows of a board or the settings
+         * @return the number of rows**/
+        public int getRows(){ return rows; }
+
+        /**Returns the number of columns of a board or the settings
+         * @return the number of columns**/
+        public int getColumns(){ return columns; }
+
+        /**Returns the number of bombs of a board or the settings
+         * @return the number of bombs**/
+        public int getNumBombs(){ return numBombs; }
+
+        /**Returns the seed of a board or of its bombs
+         * @return the seed**/
+        public long getSeed(){ return seed; }
+
+        /**Returns whether a board has a safe opening, or whether the settings make boards that need no guessing
+         * @return the flag**/
+        public boolean getFlag(){ return flag; }
+
+    }
+
+}
@@ -0,0 +1,118 @@
+import java.util.Arrays;
+
+/**
+ * A histogram of durations in nanoseconds with buckets that grow by an eighth at a time,
+ * so any duration can be recorded in constant time and without allocating, and percentiles
+ * are accurate to within about 12%
+ */
+public class LatencyHistogram {
+
+    /**The number of buckets per doubling of the duration**/
+    private static final int SUBBUCKETS = 8;
+
+    /**The count of durations in each bucket**/
+    private long[] counts;
+
+    /**The number of durations recorded**/
+    private long total;
+
+    /**The longest duration recorded**/
+    private long max;
+
+    /**
+     * The constructor for an empty histogram
+     */
+    public LatencyHistogram(){
+        counts = new long[SUBBUCKETS * 64];
+        total = 0;
+        max = 0;
+    }
+
+    /**
+     * Returns the bucket that a duration goes in
+     * @param nanos the duration
+     * @return the index of the bucket
+     */
+    private static int bucketOf(long nanos){
+        if(nanos < 2 * SUBBUCKETS){
+            return (int) Math.max(nanos, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - 3)) & (SUBBUCKETS - 1);
+        return (exponent - 2) * SUBBUCKETS + sub;
+    }
+
+    /**
+     * Returns the largest duration that goes in a bucket
+     * @param bucket the index of the bucket
+     * @return the duration in nanoseconds
+     */
+    private static long highestIn(int bucket){
+        if(bucket < 2 * SUBBUCKETS){
+            return bucket;
+        }
+        int exponent = bucket / SUBBUCKETS + 2;
+        long sub = bucket % SUBBUCKETS;
+        return ((SUBBUCKETS + sub + 1) << (exponent - 3)) - 1;
+    }
+
+    /**
+     * Records a duration
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos){
+        counts[bucketOf(nanos)]++;
+        total++;
+        max = Math.max(max, nanos);
+    }
+
+    /**
+     * Adds every duration recorded in another histogram to this one
+     * @param other the other histogram
+     */
+    public void add(LatencyHistogram other){
+        for (int b = 0; b < counts.length; b++) {
+            counts[b] += other.counts[b];
+        }
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Removes every duration recorded
+     */
+    public void clear(){
+        Arrays.fill(counts, 0);
+        total = 0;
+        max = 0;
+    }
+
+    /**
+     * Returns the duration that a given fraction of the recorded durations are no longer than
+     * @param fraction the fraction, from 0 to 1
+     * @return the duration in nanoseconds, or 0 if nothing has been recorded
+     */
+    public long getPercentile(double fraction){
+        if(total == 0){
+            return 0;
+        }
+        long rank = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int b = 0; b < counts.length; b++) {
+            seen += counts[b];
+            if(seen >= rank && counts[b] > 0){
+                return Math.min(highestIn(b), max);
+            }
+        }
+        return max;
+    }
+
+    /**Returns the number of durations recorded
+     * @return the count**/
+    public long getCount(){ return total; }
+
+    /**Returns the longest duration recorded
+     * @return the duration in nanoseconds**/
+    public long getMax(){ return max; }
+
+}
@@ -0,0 +1,333 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Plays many sessions at once against a GameServer to show how many sessions and moves it can take.
+ * Each connection is a thread that holds many sessions and plays them in rounds: it sends one command
+ * for every session, then reads every reply, so all of the sessions are in play at once. Each session
+ * clicks tiles it has not seen opened at random, and starts a new board when its game is over
+ */
+public class LoadGenerator {
+
+    /**The number of clicks played across every connection**/
+    private LongAdder moves;
+
+    /**The number of commands the server said were bad**/
+    private LongAdder errors;
+
+    /**The time taken by each round of every connection**/
+    private LatencyHistogram roundLatency;
+
+    /**The size of the boards played**/
+    private int rows;
+    private int columns;
+    private int numBombs;
+
+    /**
+     * The constructor for a generator that plays boards of one size
+     * @param rows the number of rows in each board
+     * @param columns the number of columns in each board
+     * @param numBombs the number of bombs in each board
+     */
+    public LoadGenerator(int rows, int columns, int numBombs){
+        this.rows = rows;
+        this.columns = columns;
+        this.numBombs = numBombs;
+        this.moves = new LongAdder();
+        this.errors = new LongAdder();
+        this.roundLatency = new LatencyHistogram();
+    }
+
+    /**
+     * Plays against a server until a deadline, on a thread per connection
+     * @param port the port of the server on this machine
+     * @param connections the number of connections
+     * @param sessionsPerConnection the number of sessions each connection holds
+     * @param seconds how long to play for
+     * @throws InterruptedException if interrupted while waiting for the connections to finish
+     */
+    public void run(int port, int connections, int sessionsPerConnection, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1000000000L;
+        Thread[] threads = new Thread[connections];
+        for (int t = 0; t < connections; t++) {
+            long seed = t;
+            threads[t] = new Thread(() -> play(port, sessionsPerConnection, deadline, seed), "LoadGenerator-" + t);
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Plays one connection's sessions until the deadline
+     * @param port the port of the server
+     * @param sessions the number of sessions to hold
+     * @param deadline the System.nanoTime to stop at
+     * @param seed the seed the tiles are chosen with
+     */
+    private void play(int port, int sessions, long deadline, long seed){
+        SplittableRandom random = new SplittableRandom(seed);
+        LatencyHistogram latency = new LatencyHistogram();
+        int[] ids = new int[sessions];
+        long[][] opened = new long[sessions][(rows * columns + 63) >>> 6];
+        boolean[] isOver = new boolean[sessions];
+        byte[] newBoard = ("N " + rows + " " + columns + " " + numBombs + "\n").getBytes(StandardCharsets.US_ASCII);
+        try (Socket socket = new Socket("127.0.0.1", port)) {
+            socket.setTcpNoDelay(true);
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 65536);
+            Replies in = new Replies(new BufferedInputStream(socket.getInputStream(), 65536));
+            for (int s = 0; s < sessions; s++) {
+                out.write(newBoard);
+            }
+            out.flush();
+            for (int s = 0; s < sessions; s++) {
+                in.next();
+                ids[s] = in.id;
+            }
+
+            long moveCount = 0;
+            while(System.nanoTime() < deadline){
+                long start = System.nanoTime();
+                for (int s = 0; s < sessions; s++) {
+                    if(isOver[s]){
+                        write(out, 'Q', ids[s], -1, -1);
+                        out.write(newBoard);
+                        continue;
+                    }
+                    int i = pickClosed(opened[s], random);
+                    write(out, random.nextInt(10) == 0 ? 'F' : 'L', ids[s], i / columns, i % columns);
+                }
+                out.flush();
+                for (int s = 0; s < sessions; s++) {
+                    in.next();
+                    if(in.type == 'X'){
+                        in.next();
+                        ids[s] = in.id;
+                        Arrays.fill(opened[s], 0);
+                        isOver[s] = false;
+                    }else if(in.type == 'C'){
+                        moveCount++;
+                        for (int k = 0; k < in.cellCount; k++) {
+                            int i = in.cells[k];
+                            opened[s][i >>> 6] |= 1L << i;
+                        }
+                        isOver[s] = in.state != Board.RUNNING;
+                    }else{
+                        errors.increment();
+                    }
+                }
+                latency.record(System.nanoTime() - start);
+            }
+            moves.add(moveCount);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        synchronized (roundLatency) {
+            roundLatency.add(latency);
+        }
+    }
+
+    /**
+     * Chooses a tile that has not been seen opened, at random if a few tries find one and otherwise the first
+     * @param opened one bit per tile, set if the tile has been seen opened
+     * @param random the random numbers to choose with
+     * @return the index of the tile
+     */
+    private int pickClosed(long[] opened, SplittableRandom random){
+        int size = rows * columns;
+        for (int tries = 0; tries < 8; tries++) {
+            int i = random.nextInt(size);
+            if((opened[i >>> 6] & (1L << i)) == 0){
+                return i;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if((opened[i >>> 6] & (1L << i)) == 0){
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Writes a command
+     * @param out the stream to the server
+     * @param command the command letter
+     * @param id the session
+     * @param r the row, or -1 for a command that has none
+     * @param c the column, or -1 for a command that has none
+     * @throws IOException if it cannot be written
+     */
+    private static void write(OutputStream out, char command, int id, int r, int c) throws IOException {
+        out.write(command);
+        out.write(' ');
+        writeInt(out, id);
+        if(r >= 0){
+            out.write(' ');
+            writeInt(out, r);
+            out.write(' ');
+            writeInt(out, c);
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Writes a number that is not negative in decimal
+     * @param out the stream
+     * @param value the number
+     * @throws IOException if it cannot be written
+     */
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        int divisor = 1;
+        while(value / divisor >= 10){
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.write('0' + (value / divisor) % 10);
+        }
+    }
+
+    /**
+     * Reads replies from the server one line at a time, keeping the values of the last one
+     */
+    private static class Replies {
+
+        /**The stream from the server**/
+        private InputStream in;
+
+        /**The letter of the last reply**/
+        int type;
+
+        /**The session of the last reply**/
+        int id;
+
+        /**The game state of the last click reply**/
+        int state;
+
+        /**The tiles that the last click reply opened**/
+        int[] cells = new int[64];
+        int cellCount;
+
+        /**
+         * The constructor for a reader of a stream
+         * @param in the stream from the server
+         */
+        Replies(InputStream in){
+            this.in = in;
+        }
+
+        /**
+         * Reads the next reply
+         * @throws IOException if the stream cannot be read or has ended
+         */
+        void next() throws IOException {
+            type = read();
+            cellCount = 0;
+            if(type == 'E'){
+                while(read() != '\n'){
+                    //skip the message
+                }
+                return;
+            }
+            read();
+            id = readInt();
+            if(type != 'C'){
+                return;
+            }
+            state = readInt();
+            int b = last;
+            while(b != '\n'){
+                int i = readInt();
+                int value = read();
+                b = read();
+                if(value != 'F' && value != '?' && value != '#'){
+                    if(cellCount == cells.length){
+                        cells = Arrays.copyOf(cells, cellCount * 2);
+                    }
+                    cells[cellCount++] = i;
+                }
+            }
+        }
+
+        /**The byte that ended the last number**/
+        private int last;
+
+        /**
+         * Reads a number, and the byte after it
+         * @return the number
+         * @throws IOException if the stream cannot be read or has ended
+         */
+        private int readInt() throws IOException {
+            int value = 0;
+            int b;
+            while((b = read()) >= '0' && b <= '9'){
+                value = value * 10 + (b - '0');
+            }
+            last = b;
+            return value;
+        }
+
+        /**
+         * Reads a byte
+         * @return the byte
+         * @throws IOException if the stream cannot be read or has ended
+         */
+        private int read() throws IOException {
+            int b = in.read();
+            if(b < 0){
+                throw new IOException("The server closed the connection");
+            }
+            return b;
+        }
+
+    }
+
+    /**
+     * Plays against a server, starting one in this process if no port is given, and prints how it went
+     * @param args the port (0 to start a server here, the default), the number of connections (default 100),
+     *             the sessions per connection (default 500), the seconds to play for (default 20),
+     *             and the rows, columns and bombs of each board (default 16, 16 and 40)
+     * @throws InterruptedException if interrupted while playing
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int sessions = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        int rows = args.length > 4 ? Integer.parseInt(args[4]) : 16;
+        int columns = args.length > 5 ? Integer.parseInt(args[5]) : 16;
+        int bombs = args.length > 6 ? Integer.parseInt(args[6]) : 40;
+
+        GameServer server = null;
+        if(port == 0){
+            server = new GameServer(0, Runtime.getRuntime().availableProcessors(), GameServer.DEFAULTIDLEMILLIS);
+            server.start();
+            port = server.getPort();
+        }
+        System.out.println("Playing " + connections * sessions + " sessions over " + connections
+                + " connections to port " + port + " for " + seconds + "s");
+        LoadGenerator generator = new LoadGenerator(rows, columns, bombs);
+        long start = System.nanoTime();
+        generator.run(port, connections, sessions, seconds);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        LatencyHistogram latency = generator.roundLatency;
+        System.out.printf("%d moves, %.0f moves/s, %d errors, round of %d moves p50 %.1fms p99 %.1fms max %.1fms%n",
+                generator.moves.sum(), generator.moves.sum() / elapsed, generator.errors.sum(), sessions,
+                latency.getPercentile(0.5) / 1e6, latency.getPercentile(0.99) / 1e6, latency.getMax() / 1e6);
+        if(server != null){
+            System.out.println("Server held " + server.getSessions() + " sessions at the end");
+            server.stop();
+        }
+    }
+
+}
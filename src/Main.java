@@ -1,5 +1,8 @@
 import processing.core.PApplet;
 import processing.core.PImage;
+import processing.event.MouseEvent;
+
+import java.nio.file.Paths;
 
 /**The main class that handles using processing**/
 public class Main extends PApplet {
@@ -7,6 +10,9 @@ public class Main extends PApplet {
     /**The main game class that will do everything for the game of minesweeper**/
     private Game game;
 
+    /**The number of tiles an arrow key scrolls the board by**/
+    private static final int SCROLLTILES = 4;
+
     /**The images that will be used to draw the game**/
     private PImage[] images = new PImage[24];
 
@@ -24,7 +30,8 @@ public class Main extends PApplet {
         fullScreen();
     }
 
-    /**This method is called once to initialize the game class**/
+    /**This method is called once to initialize the game class, resuming the last game if it was left in progress.
+     * If the sketch is given a journal as an argument, the journal is replayed instead**/
     public void setup(){
         for (int i = 0; i < 9; i++) {
             images[i] = loadImage("images/openTile"+i+".png");
@@ -44,7 +51,12 @@ public class Main extends PApplet {
         }
         images[23] = loadImage("images/blank.png");
         game = new Game(this, images);
-        game.setUpGame(8,8,8);
+        if(args != null && args.length > 0){
+            game.replay(Paths.get(args[0]));
+            game.setUpGame(8,8,8);
+        }else if(!game.resume()){
+            game.setUpGame(8,8,8);
+        }
     }
 
     /**This method runs once every frame and tells the game to draw itself**/
@@ -52,41 +64,91 @@ public class Main extends PApplet {
         game.draw();
     }
 
-    /**This method runs when a mouse button is released and can be used
-     * to call the left click function within the game*/
+    /**This method is called when the sketch closes, and saves a game in progress or deletes what the game saved to disk**/
+    public void dispose(){
+        game.close();
+        super.dispose();
+    }
+
+    /**This method runs when a mouse button is released and queues
+     * a left click for the game, which plays its input at the start of each frame*/
     public void mouseReleased(){
         if(mouseButton == LEFT){
-            game.leftClick(mouseX,mouseY);
+            game.getInput().leftClick(mouseX,mouseY);
         }
-        game.unHoverAll();
+        game.getInput().unHover();
     }
 
-    /**This method runs when a mouse button is pressed and can be used
-     * to call the right click function within the game*/
+    /**This method runs when a mouse button is pressed and queues
+     * a right click or a hover for the game*/
     public void mousePressed(){
         if(mouseButton == RIGHT){
-            game.rightClick(mouseX,mouseY);
+            game.getInput().rightClick(mouseX,mouseY);
         }
         if(mouseButton == LEFT){
-            game.hoverLeftClick(mouseX,mouseY);
+            game.getInput().hover(mouseX,mouseY);
         }
     }
 
     /**This method is called when the mouse is moved while holding a button
-     *and is used in order to show the hovered tiles*/
+     *and queues moving the hover to the tile under the mouse,
+     *or panning the board when dragging with the middle button*/
     public void mouseDragged(){
         if(mouseButton == LEFT){
-            game.unHoverAll();
-            game.hoverLeftClick(mouseX,mouseY);
+            game.getInput().hover(mouseX,mouseY);
+        }
+        if(mouseButton == CENTER){
+            game.getInput().pan(mouseX-pmouseX, mouseY-pmouseY);
         }
     }
 
-    /**This method is called when a key is pressed.
-     * If "a" is pressed, the ai is activated for one sweep
+    /**This method is called when the mouse wheel is turned, and queues zooming the board around the mouse
+     * @param event the wheel event, whose count is negative when the wheel is turned away from the user*/
+    public void mouseWheel(MouseEvent event){
+        game.getInput().zoom(-event.getCount(), mouseX, mouseY);
+    }
+
+    /**This method is called when a key is pressed, and queues a command for the game.
+     * If "a" is pressed, the ai is activated for one sweep.
+     * If "A" is pressed, the ai starts or stops playing on its own, and "[" and "]" make it play slower or faster.
+     * If "n" is pressed, boards that need no guessing are turned on or off.
+     * If "p" is pressed, the performance overlay is shown or hidden.
+     * If "e" is pressed, the game switches to or from an endless board.
+     * The arrow keys scroll the board
      */
     public void keyPressed(){
+        InputQueue input = game.getInput();
         if(key=='a'){
-            AI.playTurn(game); //THE AI IS UNFINISHED
+            input.command(InputQueue.AITURN);
+        }
+        if(key=='A'){
+            input.command(InputQueue.AUTOPLAY);
+        }
+        if(key=='['){
+            input.command(InputQueue.SLOWER);
+        }
+        if(key==']'){
+            input.command(InputQueue.FASTER);
+        }
+        if(key=='n'){
+            input.command(InputQueue.NOGUESS);
+        }
+        if(key=='p'){
+            input.command(InputQueue.OVERLAY);
+        }
+        if(key=='e'){
+            input.command(InputQueue.ENDLESS);
+        }
+        if(key==CODED){
+            if(keyCode==UP){
+                input.scroll(-SCROLLTILES, 0);
+            }else if(keyCode==DOWN){
+                input.scroll(SCROLLTILES, 0);
+            }else if(keyCode==LEFT){
+                input.scroll(0, -SCROLLTILES);
+            }else if(keyCode==RIGHT){
+                input.scroll(0, SCROLLTILES);
+            }
         }
     }
 
@@ -0,0 +1,674 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The exact chance that each unknown tile on a board is a bomb, given what a player can see.
+ * The unknown tiles next to open tiles (the frontier) are split into components that share no
+ * open tile, and every placement of bombs in each component is found by backtracking, with the
+ * components worked on in parallel. The placements are then weighted by the number of ways the
+ * bombs that are left can be spread over the unknown tiles away from the frontier. The counts of
+ * placements are kept as logs so that they cannot overflow however many tiles there are. A component
+ * that is too big to count in good time, such as the frontier of a huge board, is given up on, and its
+ * tiles are treated as if they were away from the frontier, so they are given the interior's chance.
+ * Weighing the components by each other takes time that grows with the square of the frontier, so a
+ * frontier of more than MAXEXACTFRONTIER tiles is instead weighed as if every bomb added to it took one
+ * from an interior so big that each unknown tile is a bomb on its own, at the same odds
+ */
+public class MineProbabilities {
+
+    /**The most tiles a component may have and be counted exactly**/
+    private static final int MAXCOMPONENTSIZE = 256;
+
+    /**The most tiles the backtracking of one component may decide before the component is given up on**/
+    private static final int MAXSTEPS = 1 << 21;
+
+    /**The tiles the backtracking of every component may decide between them, which are shared out evenly,
+     * though never to fewer than MINSTEPS a component**/
+    private static final int TOTALSTEPS = 1 << 23;
+    private static final int MINSTEPS = 1 << 10;
+
+    /**The most frontier tiles that the components are weighed by each other exactly for**/
+    private static final int MAXEXACTFRONTIER = 1024;
+
+    /**The number of halvings used to find the odds of a bomb when the frontier is too big to weigh exactly**/
+    private static final int ODDSSTEPS = 64;
+
+    /**The natural logs of n!, grown as larger ones are needed**/
+    private static double[] logFactorials = {0};
+
+    /**The tiles of the board**/
+    private TileStore tiles;
+
+    /**The indices of the frontier tiles, in order**/
+    private int[] frontier;
+
+    /**The chance that each frontier tile is a bomb**/
+    private double[] frontierProbabilities;
+
+    /**The chance that an unknown tile away from the frontier is a bomb**/
+    private double interiorProbability;
+
+    /**
+     * The constructor that works out the chances for every unknown tile on a board
+     * @param b the board
+     */
+    public MineProbabilities(Board b){
+        tiles = b.getTiles();
+        int rows = b.getRows();
+        int columns = b.getColumns();
+
+        //the open tiles that still have unknown neighbors are the constraints, and their unknown neighbors the frontier
+        IntList constraintTiles = new IntList();
+        IntList frontierList = new IntList();
+        int unknownCount = 0;
+        for (int i = 0; i < rows*columns; i++) {
+            if(isUnknown(i)){
+                unknownCount++;
+            }else if(tiles.isOpen(i) && tiles.getNumNeighboringBombs(i) > 0){
+                boolean hasUnknown = false;
+                for (int n : neighbors(i, rows, columns)) {
+                    if(isUnknown(n)){
+                        frontierList.add(n);
+                        hasUnknown = true;
+                    }
+                }
+                if(hasUnknown){
+                    constraintTiles.add(i);
+                }
+            }
+        }
+        frontier = distinctSorted(frontierList);
+        frontierProbabilities = new double[frontier.length];
+
+        //join the frontier tiles that share a constraint into components
+        int[] parent = new int[frontier.length];
+        for (int f = 0; f < parent.length; f++) {
+            parent[f] = f;
+        }
+        int[][] constraintCells = new int[constraintTiles.size()][];
+        int[] constraintBombs = new int[constraintTiles.size()];
+        for (int k = 0; k < constraintTiles.size(); k++) {
+            int i = constraintTiles.get(k);
+            IntList cells = new IntList(8);
+            int bombs = tiles.getNumNeighboringBombs(i);
+            for (int n : neighbors(i, rows, columns)) {
+                if(isUnknown(n)){
+                    cells.add(Arrays.binarySearch(frontier, n));
+                }else if(tiles.isFlagged(n)){
+                    bombs--;
+                }
+            }
+            constraintCells[k] = new int[cells.size()];
+            for (int c = 0; c < cells.size(); c++) {
+                constraintCells[k][c] = cells.get(c);
+                union(parent, cells.get(0), cells.get(c));
+            }
+            constraintBombs[k] = bombs;
+        }
+
+        int bombsLeft = b.getNumBombs() - tiles.getFlagCount();
+        int interiorCount = unknownCount - frontier.length;
+
+        List<Component> components = new ArrayList<>();
+        int[] componentOf = new int[frontier.length];
+        Arrays.fill(componentOf, -1);
+        for (int f = 0; f < frontier.length; f++) {
+            int root = find(parent, f);
+            if(componentOf[root] < 0){
+                componentOf[root] = components.size();
+                components.add(new Component(bombsLeft));
+            }
+            componentOf[f] = componentOf[root];
+            components.get(componentOf[f]).cells.add(f);
+        }
+        for (int k = 0; k < constraintCells.length; k++) {
+            components.get(componentOf[constraintCells[k][0]]).addConstraint(constraintCells[k], constraintBombs[k]);
+        }
+        int steps = Math.max(MINSTEPS, Math.min(MAXSTEPS, TOTALSTEPS / Math.max(1, components.size())));
+        for (Component component : components) {
+            component.maxSteps = steps;
+        }
+
+        if(components.size() > 1){
+            ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(components)));
+        }else{
+            for (Component component : components) {
+                component.invoke();
+            }
+        }
+
+        //the tiles of components that were given up on join the interior, as nothing is known of them
+        List<Component> solved = new ArrayList<>();
+        int solvedCount = 0;
+        for (Component component : components) {
+            if(component.isGivenUp){
+                interiorCount += component.cells.size();
+            }else{
+                solved.add(component);
+                solvedCount += component.cells.size();
+            }
+        }
+        if(solvedCount <= MAXEXACTFRONTIER){
+            combine(solved, bombsLeft, interiorCount);
+        }else{
+            estimate(solved, bombsLeft, interiorCount);
+        }
+        for (Component component : components) {
+            for (int c = 0; c < component.cells.size() && component.isGivenUp; c++) {
+                frontierProbabilities[component.cells.get(c)] = interiorProbability;
+            }
+        }
+    }
+
+    /**
+     * Weighs every component's placements by the placements of the other components and the interior,
+     * and sets the chance of every tile from them
+     * @param components the solved components
+     * @param bombsLeft the number of bombs that are not flagged
+     * @param interiorCount the number of unknown tiles away from the frontier
+     */
+    private void combine(List<Component> components, int bombsLeft, int interiorCount){
+        int k = components.size();
+
+        //each component's counts, scaled so the largest is 1
+        double[][] counts = new double[k][];
+        for (int c = 0; c < k; c++) {
+            counts[c] = fromLogs(components.get(c).logCounts);
+        }
+
+        //prefix[c] is the number of placements of each total in the components before c, and suffix[c] in those after it
+        double[][] prefix = new double[k + 1][];
+        double[][] suffix = new double[k + 1][];
+        prefix[0] = new double[]{1};
+        suffix[k] = new double[]{1};
+        for (int c = 0; c < k; c++) {
+            prefix[c + 1] = convolve(prefix[c], counts[c]);
+        }
+        for (int c = k - 1; c >= 0; c--) {
+            suffix[c] = convolve(counts[c], suffix[c + 1]);
+        }
+
+        //the weight of the frontier holding m bombs is the number of ways to put the rest in the interior
+        double[] logWeights = new double[prefix[k].length];
+        double maxLogWeight = Double.NEGATIVE_INFINITY;
+        for (int m = 0; m < logWeights.length; m++) {
+            logWeights[m] = logChoose(interiorCount, bombsLeft - m);
+            maxLogWeight = Math.max(maxLogWeight, logWeights[m]);
+        }
+        double[] weights = new double[logWeights.length];
+        for (int m = 0; m < weights.length && maxLogWeight > Double.NEGATIVE_INFINITY; m++) {
+            weights[m] = Math.exp(logWeights[m] - maxLogWeight);
+        }
+
+        for (int c = 0; c < k; c++) {
+            Component component = components.get(c);
+            double[] others = convolve(prefix[c], suffix[c + 1]);
+            double[] weightOfCount = new double[counts[c].length];
+            double total = 0;
+            for (int m = 0; m < weightOfCount.length; m++) {
+                for (int o = 0; o < others.length && m + o < weights.length; o++) {
+                    weightOfCount[m] += others[o] * weights[m + o];
+                }
+                weightOfCount[m] *= counts[c][m];
+                total += weightOfCount[m];
+            }
+            for (int cell = 0; cell < component.cells.size(); cell++) {
+                double bombWeight = 0;
+                for (int m = 0; m < weightOfCount.length; m++) {
+                    bombWeight += component.cellShares[cell][m] * weightOfCount[m];
+                }
+                frontierProbabilities[component.cells.get(cell)] = total > 0 ? bombWeight / total : 0;
+            }
+        }
+
+        double[] all = prefix[k];
+        double total = 0;
+        double interiorBombs = 0;
+        for (int m = 0; m < all.length; m++) {
+            total += all[m] * weights[m];
+            interiorBombs += all[m] * weights[m] * (bombsLeft - m);
+        }
+        interiorProbability = interiorCount > 0 && total > 0 ? interiorBombs / total / interiorCount : 0;
+    }
+
+    /**
+     * Weighs every component's placements as if each bomb in them were a bomb the interior does not have,
+     * at the odds of an interior tile being a bomb, which is nearly so when the interior is much bigger than
+     * the frontier. The components are then independent of each other, and the odds are found by halving
+     * until the chances of every tile add up to the bombs left
+     * @param components the solved components
+     * @param bombsLeft the number of bombs that are not flagged
+     * @param interiorCount the number of unknown tiles away from the frontier
+     */
+    private void estimate(List<Component> components, int bombsLeft, int interiorCount){
+        double low = -50;
+        double high = 50;
+        for (int step = 0; step < ODDSSTEPS; step++) {
+            double logOdds = (low + high) / 2;
+            double bombs = interiorCount / (1 + Math.exp(-logOdds));
+            for (Component component : components) {
+                double[] weights = weigh(component.logCounts, logOdds);
+                for (int m = 0; m < weights.length; m++) {
+                    bombs += m * weights[m];
+                }
+            }
+            if(bombs < bombsLeft){
+                low = logOdds;
+            }else{
+                high = logOdds;
+            }
+        }
+        double logOdds = (low + high) / 2;
+        for (Component component : components) {
+            double[] weights = weigh(component.logCounts, logOdds);
+            for (int cell = 0; cell < component.cells.size(); cell++) {
+                double bombWeight = 0;
+                for (int m = 0; m < weights.length; m++) {
+                    bombWeight += component.cellShares[cell][m] * weights[m];
+                }
+                frontierProbabilities[component.cells.get(cell)] = Math.min(1, bombWeight);
+            }
+        }
+        interiorProbability = interiorCount > 0 ? 1 / (1 + Math.exp(-logOdds)) : 0;
+    }
+
+    /**
+     * Weighs a component's placements with each number of bombs by the odds of that many bombs
+     * @param logCounts the natural log of the number of placements with each number of bombs
+     * @param logOdds the natural log of the odds of a tile being a bomb
+     * @return the share of the weight that each number of bombs has, adding up to 1
+     */
+    private static double[] weigh(double[] logCounts, double logOdds){
+        double[] logWeights = new double[logCounts.length];
+        for (int m = 0; m < logWeights.length; m++) {
+            logWeights[m] = logCounts[m] + m * logOdds;
+        }
+        double[] weights = fromLogs(logWeights);
+        double total = 0;
+        for (double w : weights) {
+            total += w;
+        }
+        for (int m = 0; m < weights.length && total > 0; m++) {
+            weights[m] /= total;
+        }
+        return weights;
+    }
+
+    /**
+     * Returns the chance that a tile is a bomb
+     * @param i the index of the tile
+     * @return 1 for flagged tiles, 0 for open tiles, and otherwise the chance it is a bomb
+     */
+    public double getProbability(int i){
+        if(tiles.isFlagged(i)){
+            return 1;
+        }
+        if(tiles.isOpen(i)){
+            return 0;
+        }
+        int f = Arrays.binarySearch(frontier, i);
+        return f >= 0 ? frontierProbabilities[f] : interiorProbability;
+    }
+
+    /**
+     * Returns the closed tile that is least likely to be a bomb
+     * @return the index of the tile, or -1 if there are no closed tiles
+     */
+    public int getSafestTile(){
+        int safest = -1;
+        double lowest = 2;
+        for (int i = 0; i < tiles.getRows() * tiles.getColumns(); i++) {
+            if(tiles.isClosed(i) && getProbability(i) < lowest){
+                lowest = getProbability(i);
+                safest = i;
+            }
+        }
+        return safest;
+    }
+
+    /**
+     * Returns true if a tile is neither open nor flagged
+     * @param i the index of the tile
+     * @return if the tile is unknown
+     */
+    private boolean isUnknown(int i){
+        return !tiles.isOpen(i) && !tiles.isFlagged(i);
+    }
+
+    /**
+     * Returns the indices of the tiles in the 8 tile ring around a tile
+     * @param i the index of the tile
+     * @param rows the number of rows in the board
+     * @param columns the number of columns in the board
+     * @return the indices of its neighbors
+     */
+    private static int[] neighbors(int i, int rows, int columns){
+        int row = i / columns;
+        int col = i % columns;
+        int rowMin = Math.max(0, row-1);
+        int rowMax = Math.min(rows, row+2);
+        int colMin = Math.max(0, col-1);
+        int colMax = Math.min(columns, col+2);
+        int[] n = new int[(rowMax-rowMin)*(colMax-colMin) - 1];
+        int k = 0;
+        for (int r = rowMin; r < rowMax; r++) {
+            for (int c = colMin; c < colMax; c++) {
+                if(r != row || c != col){
+                    n[k++] = r*columns + c;
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns the values in a list in order, without repeats
+     * @param list the list
+     * @return the distinct values, sorted
+     */
+    private static int[] distinctSorted(IntList list){
+        int[] values = new int[list.size()];
+        for (int v = 0; v < values.length; v++) {
+            values[v] = list.get(v);
+        }
+        Arrays.sort(values);
+        int n = 0;
+        for (int v = 0; v < values.length; v++) {
+            if(n == 0 || values[n-1] != values[v]){
+                values[n++] = values[v];
+            }
+        }
+        return Arrays.copyOf(values, n);
+    }
+
+    /**
+     * Finds the root of a set in a union find forest
+     * @param parent the parent of each element
+     * @param x the element
+     * @return the root of its set
+     */
+    private static int find(int[] parent, int x){
+        while(parent[x] != x){
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    /**
+     * Joins the sets of two elements in a union find forest
+     * @param parent the parent of each element
+     * @param a one element
+     * @param b the other element
+     */
+    private static void union(int[] parent, int a, int b){
+        parent[find(parent, a)] = find(parent, b);
+    }
+
+    /**
+     * Convolves two distributions, scaling the result so its largest value is 1 so that it cannot overflow.
+     * Every chance is a ratio of values scaled the same way, so the scale does not matter
+     * @param a one distribution
+     * @param b the other distribution
+     * @return the distribution of the sum
+     */
+    private static double[] convolve(double[] a, double[] b){
+        double[] result = new double[a.length + b.length - 1];
+        double max = 0;
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < b.length; j++) {
+                result[i + j] += a[i] * b[j];
+            }
+        }
+        for (double v : result) {
+            max = Math.max(max, v);
+        }
+        if(max > 0){
+            for (int r = 0; r < result.length; r++) {
+                result[r] /= max;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Turns the logs of a distribution back into values, scaled so the largest is 1 so that they cannot overflow
+     * @param logs the natural logs of the values, negative infinity for 0
+     * @return the scaled values
+     */
+    private static double[] fromLogs(double[] logs){
+        double max = Double.NEGATIVE_INFINITY;
+        for (double log : logs) {
+            max = Math.max(max, log);
+        }
+        double[] values = new double[logs.length];
+        for (int v = 0; v < values.length && max > Double.NEGATIVE_INFINITY; v++) {
+            values[v] = Math.exp(logs[v] - max);
+        }
+        return values;
+    }
+
+    /**
+     * Returns the natural log of the number of ways to choose k things from n
+     * @param n the number of things
+     * @param k the number chosen
+     * @return the log of n choose k, or negative infinity if there are no ways
+     */
+    private static double logChoose(int n, int k){
+        if(k < 0 || k > n){
+            return Double.NEGATIVE_INFINITY;
+        }
+        double[] table = logFactorials(n);
+        return table[n] - table[k] - table[n - k];
+    }
+
+    /**
+     * Returns the table of log factorials, growing it first if it does not reach n
+     * @param n the largest factorial needed
+     * @return the table
+     */
+    private static synchronized double[] logFactorials(int n){
+        if(logFactorials.length <= n){
+            int old = logFactorials.length;
+            double[] table = Arrays.copyOf(logFactorials, Math.max(n + 1, old * 2));
+            for (int i = old; i < table.length; i++) {
+                table[i] = table[i - 1] + Math.log(i);
+            }
+            logFactorials = table;
+        }
+        return logFactorials;
+    }
+
+    /**
+     * A group of frontier tiles that share constraints, whose bomb placements are counted by backtracking.
+     * The backtracking stops after maxSteps tiles are decided, so no count it makes can be more than
+     * MAXSTEPS and every count is exact as a double until it is turned into a log
+     */
+    private static class Component extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /**The frontier positions of the tiles in this component**/
+        IntList cells = new IntList();
+
+        /**The tiles of each constraint, as frontier positions, and the bombs each must have**/
+        List<int[]> constraints = new ArrayList<>();
+        IntList constraintBombs = new IntList();
+
+        /**The most bombs any placement may have**/
+        int bombsLeft;
+
+        /**The natural log of the number of placements with each number of bombs**/
+        double[] logCounts;
+
+        /**For each tile, the share of the placements with each number of bombs in which the tile is a bomb**/
+        double[][] cellShares;
+
+        /**True if the component has too many tiles or placements to count**/
+        boolean isGivenUp;
+
+        /**The number of placements with each number of bombs, while they are being counted**/
+        private double[] counts;
+
+        /**The number of tiles the backtracking may decide, and the number it may still decide**/
+        int maxSteps;
+        private int stepsLeft;
+
+        /**The constraints that each tile of the component is in, by component position**/
+        private int[][] constraintsOf;
+
+        /**The bombs placed so far in each constraint, and the tiles of it not yet decided**/
+        private int[] placed;
+        private int[] undecided;
+
+        /**True for each tile of the component that is a bomb in the current placement**/
+        private boolean[] isBomb;
+
+        /**
+         * The constructor for an empty component
+         * @param bombsLeft the most bombs any placement may have
+         */
+        Component(int bombsLeft){
+            this.bombsLeft = bombsLeft;
+        }
+
+        /**
+         * Adds a constraint to this component
+         * @param frontierCells the frontier positions of the tiles in the constraint
+         * @param bombs the number of bombs that must be among them
+         */
+        void addConstraint(int[] frontierCells, int bombs){
+            constraints.add(frontierCells);
+            constraintBombs.add(bombs);
+        }
+
+        /**
+         * Counts every placement of bombs that meets all the constraints
+         */
+        protected void compute(){
+            int size = cells.size();
+            if(size > MAXCOMPONENTSIZE){
+                isGivenUp = true;
+                return;
+            }
+            int[] frontierCells = new int[size];
+            for (int c = 0; c < size; c++) {
+                frontierCells[c] = cells.get(c);
+            }
+            //cells are listed in frontier order, so a cell's position is found by binary search
+            IntList[] constraintLists = new IntList[size];
+            for (int c = 0; c < size; c++) {
+                constraintLists[c] = new IntList(8);
+            }
+            placed = new int[constraints.size()];
+            undecided = new int[constraints.size()];
+            for (int k = 0; k < constraints.size(); k++) {
+                int[] constraint = constraints.get(k);
+                for (int f = 0; f < constraint.length; f++) {
+                    int position = Arrays.binarySearch(frontierCells, constraint[f]);
+                    constraint[f] = position;
+                    constraintLists[position].add(k);
+                }
+                undecided[k] = constraint.length;
+            }
+            constraintsOf = new int[size][];
+            for (int c = 0; c < size; c++) {
+                constraintsOf[c] = new int[constraintLists[c].size()];
+                for (int k = 0; k < constraintsOf[c].length; k++) {
+                    constraintsOf[c][k] = constraintLists[c].get(k);
+                }
+            }
+
+            //decide the tiles in breadth first order through the constraints, so constraints are finished early
+            int[] order = new int[size];
+            boolean[] isOrdered = new boolean[size];
+            int ordered = 0;
+            for (int start = 0; start < size; start++) {
+                if(isOrdered[start]){
+                    continue;
+                }
+                isOrdered[start] = true;
+                order[ordered++] = start;
+                for (int next = ordered - 1; next < ordered; next++) {
+                    for (int k : constraintsOf[order[next]]) {
+                        for (int c : constraints.get(k)) {
+                            if(!isOrdered[c]){
+                                isOrdered[c] = true;
+                                order[ordered++] = c;
+                            }
+                        }
+                    }
+                }
+            }
+            counts = new double[Math.min(size, Math.max(bombsLeft, 0)) + 1];
+            cellShares = new double[size][counts.length];
+            isBomb = new boolean[size];
+            stepsLeft = maxSteps;
+            place(order, 0, 0);
+            if(isGivenUp){
+                cellShares = null;
+                return;
+            }
+            logCounts = new double[counts.length];
+            for (int m = 0; m < counts.length; m++) {
+                logCounts[m] = Math.log(counts[m]);
+                for (int c = 0; c < size && counts[m] > 0; c++) {
+                    cellShares[c][m] /= counts[m];
+                }
+            }
+        }
+
+        /**
+         * Decides each remaining tile in turn, counting every placement that meets all the constraints,
+         * and gives up on the component once it has run out of steps. The depth is at most MAXCOMPONENTSIZE
+         * @param order the order the tiles are decided in
+         * @param depth the number of tiles decided so far
+         * @param bombs the number of bombs placed so far
+         */
+        private void place(int[] order, int depth, int bombs){
+            if(--stepsLeft < 0){
+                isGivenUp = true;
+                return;
+            }
+            if(depth == order.length){
+                counts[bombs]++;
+                for (int c = 0; c < isBomb.length; c++) {
+                    if(isBomb[c]){
+                        cellShares[c][bombs]++;
+                    }
+                }
+                return;
+            }
+            int cell = order[depth];
+            for (int bomb = 0; bomb <= 1; bomb++) {
+                if(bombs + bomb >= counts.length){
+                    break;
+                }
+                boolean fits = true;
+                for (int k : constraintsOf[cell]) {
+                    placed[k] += bomb;
+                    undecided[k]--;
+                    int need = constraintBombs.get(k);
+                    if(placed[k] > need || placed[k] + undecided[k] < need){
+                        fits = false;
+                    }
+                }
+                if(fits && !isGivenUp){
+                    isBomb[cell] = bomb == 1;
+                    place(order, depth + 1, bombs + bomb);
+                    isBomb[cell] = false;
+                }
+                for (int k : constraintsOf[cell]) {
+                    placed[k] -= bomb;
+                    undecided[k]++;
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,51 @@
+/**
+ * A move that can be made on a board, either opening a tile or flagging it
+ */
+public class Move {
+
+    /**The row of the tile**/
+    private int row;
+
+    /**The column of the tile**/
+    private int column;
+
+    /**True if the tile is to be flagged, false if it is to be opened**/
+    private boolean isFlag;
+
+    /**
+     * The constructor for a move
+     * @param row the row of the tile
+     * @param column the column of the tile
+     * @param isFlag true to flag the tile, false to open it
+     */
+    public Move(int row, int column, boolean isFlag){
+        this.row = row;
+        this.column = column;
+        this.isFlag = isFlag;
+    }
+
+    /**
+     * Makes this move on a board
+     * @param b the board
+     */
+    public void apply(Board b){
+        if(isFlag){
+            b.aiRightClick(row, column);
+        }else{
+            b.leftClick(row, column);
+        }
+    }
+
+    /**Returns the row of the tile
+     * @return the row**/
+    public int getRow(){ return row; }
+
+    /**Returns the column of the tile
+     * @return the column**/
+    public int getColumn(){ return column; }
+
+    /**Returns true if the move flags the tile rather than opening it
+     * @return if the move is a flag**/
+    public boolean isFlag(){ return isFlag; }
+
+}
@@ -0,0 +1,78 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Finds boards that can be solved from the first click without guessing.
+ * Candidate seeds are tried in parallel on every core of a fork join pool, each one
+ * played out by a Solver, and the first seed whose board is solved stops the others
+ */
+public final class NoGuessGenerator {
+
+    /**Private constructor so that NoGuessGenerator cannot be instantiated**/
+    private NoGuessGenerator(){ }
+
+    /**
+     * Searches for a seed that gives a board that can be solved without guessing
+     * @param rows the number of rows in the board
+     * @param columns the number of columns in the board
+     * @param numBombs the number of bombs in the board
+     * @param firstRow the row of the first click
+     * @param firstColumn the column of the first click
+     * @param baseSeed the seed that the candidate seeds are made from
+     * @param budgetMillis the longest the search may take
+     * @return a seed that can be solved, or baseSeed if none was found within the budget
+     */
+    public static long findSeed(int rows, int columns, int numBombs, int firstRow, int firstColumn,
+                                long baseSeed, long budgetMillis){
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicLong nextCandidate = new AtomicLong(0);
+        AtomicReference<Long> found = new AtomicReference<>(null);
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        List<ForkJoinTask<?>> searches = new ArrayList<>();
+        for (int w = 0; w < pool.getParallelism(); w++) {
+            searches.add(pool.submit(() -> {
+                while(!done.get() && System.nanoTime() < deadline){
+                    long seed = new SplittableRandom(baseSeed + nextCandidate.getAndIncrement()).nextLong();
+                    Board candidate = new Board(rows, columns, numBombs, seed, Clock.SYSTEM);
+                    candidate.setSafeOpening(true);
+                    candidate.leftClick(firstRow, firstColumn);
+                    if(new Solver(candidate).solve(done) && found.compareAndSet(null, seed)){
+                        done.set(true);
+                    }
+                }
+            }));
+        }
+
+        try {
+            for (ForkJoinTask<?> search : searches) {
+                long remaining = deadline - System.nanoTime();
+                if(remaining <= 0 || done.get()){
+                    break;
+                }
+                search.get(remaining, TimeUnit.NANOSECONDS);
+            }
+        } catch (TimeoutException e) {
+            //the budget ran out, so the base seed is used
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            done.set(true);
+        }
+        Long seed = found.get();
+        return seed != null ? seed : baseSeed;
+    }
+
+}
@@ -0,0 +1,172 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Plays a journal back against the engine as fast as it can, without drawing anything, to reproduce
+ * the games that were recorded or to use them as a workload. Boards are timed by a clock that reads
+ * the time of the event being played, so timers come out as they were recorded however fast the replay is
+ */
+public class Replay {
+
+    /**The time of the event being played, which the boards are timed with**/
+    private long now;
+
+    /**The board being played, or null before the first board event**/
+    private Board board;
+
+    /**The results of the replay so far**/
+    private Results results;
+
+    /**
+     * The results of a replay
+     */
+    public static class Results {
+
+        /**The number of events played**/
+        long events;
+
+        /**The number of boards played**/
+        long boards;
+
+        /**The number of boards won**/
+        long wins;
+
+        /**The number of boards lost**/
+        long losses;
+
+        /**The number of tiles opened**/
+        long revealed;
+
+        /**The time taken to play each event**/
+        LatencyHistogram eventLatency = new LatencyHistogram();
+
+        /**Returns the number of events played
+         * @return the number of events**/
+        public long getEvents(){ return events; }
+
+        /**Returns the number of boards played
+         * @return the number of boards**/
+        public long getBoards(){ return boards; }
+
+        /**Returns the number of boards won
+         * @return the number of wins**/
+        public long getWins(){ return wins; }
+
+        /**Returns the number of boards lost
+         * @return the number of losses**/
+        public long getLosses(){ return losses; }
+
+        /**Returns the number of tiles opened
+         * @return the number of tiles**/
+        public long getRevealed(){ return revealed; }
+
+        /**Returns the time taken to play each event
+         * @return the histogram of event latencies**/
+        public LatencyHistogram getEventLatency(){ return eventLatency; }
+
+    }
+
+    /**Private constructor, as replays are run with run**/
+    private Replay(){
+        results = new Results();
+    }
+
+    /**
+     * Plays every event in a journal
+     * @param path the journal
+     * @return the results of the replay
+     * @throws IllegalStateException if the file is not a journal this version can read
+     */
+    public static Results run(Path path){
+        Replay replay = new Replay();
+        Journal.Reader reader = new Journal.Reader(path);
+        while(reader.hasNext()){
+            reader.next();
+            long start = System.nanoTime();
+            replay.play(reader);
+            replay.results.eventLatency.record(System.nanoTime() - start);
+            replay.results.events++;
+        }
+        replay.finishBoard();
+        return replay.results;
+    }
+
+    /**
+     * Plays one event
+     * @param event the reader, which has just read the event
+     */
+    private void play(Journal.Reader event){
+        now = event.getTime();
+        if(event.getType() == Journal.BOARD){
+            finishBoard();
+            board = new Board(event.getRows(), event.getColumns(), event.getNumBombs(), event.getSeed(), () -> now);
+            board.setSafeOpening(event.getFlag());
+            results.boards++;
+            return;
+        }
+        if(board == null){
+            return;
+        }
+        switch (event.getType()) {
+            case Journal.SEED:
+                board.setSeed(event.getSeed());
+                break;
+            case Journal.LEFTCLICK:
+                results.revealed += board.leftClick(event.getRow(), event.getColumn());
+                break;
+            case Journal.RIGHTCLICK:
+                board.rightClick(event.getRow(), event.getColumn());
+                break;
+            case Journal.FLAG:
+                board.aiRightClick(event.getRow(), event.getColumn());
+                break;
+            case Journal.HOVER:
+                board.hover(event.getRow(), event.getColumn());
+                break;
+            case Journal.UNHOVER:
+                board.unHoverAll();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Counts how the board being played ended, if it did
+     */
+    private void finishBoard(){
+        if(board == null){
+            return;
+        }
+        int state = board.getGameState();
+        if(state == Board.WINSTOPPED){
+            results.wins++;
+        }else if(state == Board.LOSSSTOPPED){
+            results.losses++;
+        }
+    }
+
+    /**
+     * Replays a journal a number of times and prints how fast it was played
+     * @param args the journal, and the number of times to play it (default 1)
+     */
+    public static void main(String[] args){
+        if(args.length < 1){
+            System.out.println("Usage: Replay <journal> [times]");
+            return;
+        }
+        Path path = Paths.get(args[0]);
+        int times = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        for (int t = 0; t < times; t++) {
+            long start = System.nanoTime();
+            Results results = run(path);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            LatencyHistogram latency = results.getEventLatency();
+            System.out.printf("%d events on %d boards (%d won, %d lost, %d tiles opened) in %.1fms: %.0f events/s, event latency p50 %.1fus p99 %.1fus max %.1fus%n",
+                    results.getEvents(), results.getBoards(), results.getWins(), results.getLosses(), results.getRevealed(),
+                    seconds * 1000, results.getEvents() / seconds,
+                    latency.getPercentile(0.5) / 1000.0, latency.getPercentile(0.99) / 1000.0, latency.getMax() / 1000.0);
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * A histogram of the values recorded over the last few seconds.
+ * Values go into the newest of a ring of histograms, and each time the ring is rolled the oldest
+ * is emptied to take new values. Rolling also publishes the percentiles of the whole ring, so they
+ * can be read from any thread while the values are recorded on the drawing thread
+ */
+public class RollingStat implements RollingStatMBean {
+
+    /**The name of the value being measured**/
+    private String name;
+
+    /**What the values are measured in**/
+    private String unit;
+
+    /**The ring of histograms, each holding the values from one roll to the next**/
+    private LatencyHistogram[] windows;
+
+    /**The index of the histogram that values are recorded in**/
+    private int current;
+
+    /**The histogram the ring is added into to find its percentiles**/
+    private LatencyHistogram merged;
+
+    /**The percentiles published by the last roll**/
+    private volatile long count;
+    private volatile long p50;
+    private volatile long p90;
+    private volatile long p99;
+    private volatile long max;
+
+    /**
+     * The constructor for an empty rolling stat
+     * @param name the name of the value being measured
+     * @param unit what the values are measured in
+     * @param numWindows the number of rolls that a value is kept for
+     */
+    public RollingStat(String name, String unit, int numWindows){
+        this.name = name;
+        this.unit = unit;
+        this.windows = new LatencyHistogram[numWindows];
+        for (int w = 0; w < numWindows; w++) {
+            windows[w] = new LatencyHistogram();
+        }
+        this.current = 0;
+        this.merged = new LatencyHistogram();
+    }
+
+    /**
+     * Records a value in the newest histogram
+     * @param value the value
+     */
+    public void record(long value){
+        windows[current].record(value);
+    }
+
+    /**
+     * Publishes the percentiles of every value in the ring, then empties the oldest histogram to take new values
+     */
+    public void roll(){
+        merged.clear();
+        for (LatencyHistogram window : windows) {
+            merged.add(window);
+        }
+        count = merged.getCount();
+        p50 = merged.getPercentile(0.5);
+        p90 = merged.getPercentile(0.9);
+        p99 = merged.getPercentile(0.99);
+        max = merged.getMax();
+        current = (current + 1) % windows.length;
+        windows[current].clear();
+    }
+
+    /**
+     * Empties every histogram and the published percentiles
+     */
+    public void clear(){
+        for (LatencyHistogram window : windows) {
+            window.clear();
+        }
+        count = 0;
+        p50 = 0;
+        p90 = 0;
+        p99 = 0;
+        max = 0;
+    }
+
+    /**Returns the name of the value being measured
+     * @return the name**/
+    public String getName(){ return name; }
+
+    public String getUnit(){ return unit; }
+
+    public long getCount(){ return count; }
+
+    public long getP50(){ return p50; }
+
+    public long getP90(){ return p90; }
+
+    public long getP99(){ return p99; }
+
+    public long getMax(){ return max; }
+
+}
@@ -0,0 +1,30 @@
+/**
+ * The management interface of a RollingStat, which JMX shows as read only attributes
+ */
+public interface RollingStatMBean {
+
+    /**Returns what the values are measured in
+     * @return the unit**/
+    String getUnit();
+
+    /**Returns the number of values recorded in the window
+     * @return the count**/
+    long getCount();
+
+    /**Returns the median value in the window
+     * @return the 50th percentile**/
+    long getP50();
+
+    /**Returns the value that 90% of the window is no more than
+     * @return the 90th percentile**/
+    long getP90();
+
+    /**Returns the value that 99% of the window is no more than
+     * @return the 99th percentile**/
+    long getP99();
+
+    /**Returns the largest value in the window
+     * @return the maximum**/
+    long getMax();
+
+}
@@ -0,0 +1,329 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A saved game on disk, which a game can be resumed from or another process can read a board from.
+ * The file is a header with the board's size, seed and elapsed time, then the store's bitplanes
+ * copied whole, then a tail of records that each give what the player has done to one tile.
+ * A full save copies the bitplanes out through a small buffer a long at a time, so no tile is looked at
+ * one by one. The file is never mapped, as a mapping stays open until it is garbage collected, and a file
+ * with a mapping open cannot be truncated on Windows.
+ * An autosave only appends a record for each tile that changed since the last save and rewrites
+ * the header, and the tail is folded back into the bitplanes by a full save once it grows as big
+ * as they are. Everything is little endian
+ */
+public class SaveFile implements TileListener {
+
+    /**The first 4 bytes of a save file, "MSWP"**/
+    private static final int MAGIC = 0x5057534D;
+
+    /**The version of the format, which is changed whenever the format is**/
+    private static final int VERSION = 1;
+
+    /**The size of the header, which is the magic, the version, the rows, columns, bombs and flags,
+     * then the seed, the elapsed time and the budget for boards that need no guessing**/
+    private static final int HEADERBYTES = 48;
+
+    /**The size of a tail record, which is the index of a tile then its TileStore player state**/
+    private static final int RECORDBYTES = 5;
+
+    /**The size of the buffer that tail records are gathered in before they are written**/
+    private static final int BUFFERBYTES = 4096;
+
+    /**The size of the buffer that the bitplanes are copied through**/
+    private static final int PLANEBUFFERBYTES = 1 << 16;
+
+    /**The bits of the flags in the header**/
+    private static final int BOMBSSET = 1;
+    private static final int TIMERSTARTED = 2;
+    private static final int TIMERSTOPPED = 4;
+    private static final int SAFEOPENING = 8;
+
+    /**The file the game is saved to**/
+    private Path path;
+
+    /**The board being saved, or null if there is none**/
+    private Board board;
+
+    /**The tiles that have changed since the last save, in the order they first changed**/
+    private IntList changed;
+
+    /**One bit per tile, set if the tile is in changed**/
+    private long[] isChanged;
+
+    /**True if the file holds the board as of the last save, so changes can be appended to it**/
+    private boolean isSaved;
+
+    /**True if the bombs had been placed when the bitplanes were last written**/
+    private boolean savedBombs;
+
+    /**The size of the tail in bytes**/
+    private long tailBytes;
+
+    /**The buffer the header and tail records are written from**/
+    private ByteBuffer buffer;
+
+    /**
+     * The constructor for a save file that no board is saved to yet
+     * @param path the file to save to
+     */
+    public SaveFile(Path path){
+        this.path = path;
+        this.changed = new IntList();
+        this.buffer = ByteBuffer.allocate(BUFFERBYTES).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Starts saving a board, which the next save writes in full
+     * @param board the board to save
+     */
+    public void setBoard(Board board){
+        if(this.board != null){
+            this.board.removeTileListener(this);
+        }
+        this.board = board;
+        board.addTileListener(this);
+        changed.clear();
+        isChanged = new long[(board.getRows() * board.getColumns() + 63) >>> 6];
+        isSaved = false;
+    }
+
+    @Override
+    public void tileChanged(int i){
+        if((isChanged[i >>> 6] & (1L << i)) == 0){
+            isChanged[i >>> 6] |= 1L << i;
+            changed.add(i);
+        }
+    }
+
+    /**
+     * Forgets which tiles have changed, once they are saved
+     */
+    private void clearChanged(){
+        for (int c = 0; c < changed.size(); c++) {
+            int i = changed.get(c);
+            isChanged[i >>> 6] &= ~(1L << i);
+        }
+        changed.clear();
+    }
+
+    /**
+     * Fills the buffer with the header of the board
+     */
+    private void fillHeader(){
+        int flags = (board.areBombsSet() ? BOMBSSET : 0)
+                | (board.isTimerStarted() ? TIMERSTARTED : 0)
+                | (board.isTimerStopped() ? TIMERSTOPPED : 0)
+                | (board.isSafeOpening() ? SAFEOPENING : 0);
+        buffer.clear();
+        buffer.putInt(MAGIC).putInt(VERSION)
+                .putInt(board.getRows()).putInt(board.getColumns()).putInt(board.getNumBombs()).putInt(flags)
+                .putLong(board.getSeed()).putLong(board.getElapsedMillis()).putLong(board.getNoGuessBudgetMillis());
+        buffer.flip();
+    }
+
+    /**
+     * Writes the whole board, replacing whatever the file held
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public void save(){
+        TileStore tiles = board.getTiles();
+        //the file is truncated first, so nothing may be appended to it until this save is done
+        isSaved = false;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            fillHeader();
+            long offset = 0;
+            while(buffer.hasRemaining()){
+                offset += channel.write(buffer, offset);
+            }
+            ByteBuffer planes = ByteBuffer.allocate(PLANEBUFFERBYTES).order(ByteOrder.LITTLE_ENDIAN);
+            int words = tiles.getSavedBytes() / 8;
+            for (int word = 0; word < words; ) {
+                planes.clear();
+                word = tiles.saveTo(planes, word);
+                planes.flip();
+                while(planes.hasRemaining()){
+                    offset += channel.write(planes, offset);
+                }
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        clearChanged();
+        isSaved = true;
+        savedBombs = board.areBombsSet();
+        tailBytes = 0;
+    }
+
+    /**
+     * Saves the tiles that changed since the last save by appending them to the file, and updates the header.
+     * The board is saved in full instead if it never has been, if its bombs have been placed since,
+     * or if the tail would grow bigger than the bitplanes
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public void autosave(){
+        TileStore tiles = board.getTiles();
+        long appended = (long) changed.size() * RECORDBYTES;
+        if(!isSaved || savedBombs != board.areBombsSet() || tailBytes + appended > tiles.getSavedBytes()){
+            save();
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            long offset = HEADERBYTES + tiles.getSavedBytes() + tailBytes;
+            buffer.clear();
+            for (int c = 0; c < changed.size(); c++) {
+                if(buffer.remaining() < RECORDBYTES){
+                    offset += write(channel, offset);
+                    buffer.clear();
+                }
+                int i = changed.get(c);
+                buffer.putInt(i).put((byte) tiles.getPlayerState(i));
+            }
+            offset += write(channel, offset);
+            tailBytes = offset - HEADERBYTES - tiles.getSavedBytes();
+            fillHeader();
+            while(buffer.hasRemaining()){
+                channel.write(buffer, buffer.position());
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        clearChanged();
+    }
+
+    /**
+     * Writes what has been put in the buffer to a channel
+     * @param channel the channel
+     * @param offset where in the file to write it
+     * @return the number of bytes written
+     * @throws IOException if it cannot be written
+     */
+    private long write(FileChannel channel, long offset) throws IOException {
+        buffer.flip();
+        long written = 0;
+        while(buffer.hasRemaining()){
+            written += channel.write(buffer, offset + written);
+        }
+        return written;
+    }
+
+    /**
+     * Fills a buffer up to its limit from a channel, then flips it to be read
+     * @param channel the channel
+     * @param buffer the buffer
+     * @param offset where in the file to read from
+     * @param path the file, to name if it ends too soon
+     * @return the number of bytes read
+     * @throws IOException if it cannot be read
+     * @throws IllegalStateException if the file ends before the buffer is full
+     */
+    private static int read(FileChannel channel, ByteBuffer buffer, long offset, Path path) throws IOException {
+        int start = buffer.position();
+        while(buffer.hasRemaining()){
+            if(channel.read(buffer, offset + buffer.position() - start) < 0){
+                throw new IllegalStateException("Save file is cut short: " + path);
+            }
+        }
+        buffer.flip();
+        return buffer.limit() - start;
+    }
+
+    /**
+     * Deletes the file, if there is one, so no game is resumed from it
+     * @throws UncheckedIOException if it cannot be deleted
+     */
+    public void delete(){
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        isSaved = false;
+    }
+
+    /**
+     * Loads a saved board, copying the bitplanes through a small buffer straight into the board's store,
+     * then applying the tail in the order it was written. A record cut short by the file ending is ignored.
+     * The header is checked against the size of the file before the board is made, so a file that is
+     * cut short or not a save file cannot make the board take more memory than the file would need
+     * @param path the file to load
+     * @param clock the clock to time the board with, which carries on from the saved elapsed time
+     * @return the board, or null if there is no file
+     * @throws IllegalStateException if the file is not a save file this version can read
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public static Board load(Path path, Clock clock){
+        if(!Files.exists(path)){
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileBytes = channel.size();
+            if(fileBytes < HEADERBYTES){
+                throw new IllegalStateException("Not a save file: " + path);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADERBYTES).order(ByteOrder.LITTLE_ENDIAN);
+            read(channel, header, 0, path);
+            if(header.getInt() != MAGIC || header.getInt() != VERSION){
+                throw new IllegalStateException("Not a save file: " + path);
+            }
+            int rows = header.getInt();
+            int columns = header.getInt();
+            int numBombs = header.getInt();
+            int flags = header.getInt();
+            long seed = header.getLong();
+            long elapsedMillis = header.getLong();
+            long noGuessBudgetMillis = header.getLong();
+            long size = (long) rows * columns;
+            if(rows <= 0 || columns <= 0 || size > Integer.MAX_VALUE || numBombs < 0 || numBombs >= size){
+                throw new IllegalStateException("Save file has a bad board size: " + path);
+            }
+            if(fileBytes < HEADERBYTES + TileStore.getSavedBytes(rows, columns)){
+                throw new IllegalStateException("Save file is cut short: " + path);
+            }
+
+            Board board = new Board(rows, columns, numBombs, seed, clock);
+            board.setNoGuess(noGuessBudgetMillis);
+            board.setSafeOpening((flags & SAFEOPENING) != 0);
+            TileStore tiles = board.getTiles();
+            ByteBuffer chunk = ByteBuffer.allocate(PLANEBUFFERBYTES).order(ByteOrder.LITTLE_ENDIAN);
+            long offset = HEADERBYTES;
+            int words = tiles.getSavedBytes() / 8;
+            for (int word = 0; word < words; ) {
+                chunk.clear();
+                chunk.limit((int) Math.min(chunk.capacity(), (long) (words - word) * 8));
+                offset += read(channel, chunk, offset, path);
+                word = tiles.loadFrom(chunk, word);
+            }
+            //a record cut short by the file ending is left out
+            long tailEnd = offset + (fileBytes - offset) / RECORDBYTES * RECORDBYTES;
+            while(offset < tailEnd){
+                chunk.clear();
+                chunk.limit((int) Math.min(chunk.capacity() / RECORDBYTES * RECORDBYTES, tailEnd - offset));
+                offset += read(channel, chunk, offset, path);
+                while(chunk.hasRemaining()){
+                    int i = chunk.getInt();
+                    int state = chunk.get();
+                    if(i < 0 || i >= size){
+                        throw new IllegalStateException("Save file has a tile out of range: " + path);
+                    }
+                    tiles.setPlayerState(i, state);
+                }
+            }
+            board.resume((flags & BOMBSSET) != 0, elapsedMillis,
+                    (flags & TIMERSTARTED) != 0, (flags & TIMERSTOPPED) != 0);
+            return board;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
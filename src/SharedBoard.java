@@ -0,0 +1,439 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A board that many players or bots can click on at once, from any thread.
+ * The bombs and the counts of neighboring bombs never change once they are placed, so they are kept
+ * in a TileStore that every thread only reads. What the players have done to each tile is 2 bits,
+ * 32 tiles to a long, and every change to a tile is a compare and set on its long, so a tile is
+ * only ever opened once: whichever click opens it counts it and carries its flood fill on, and a
+ * flood fill that reaches a tile another one opened stops there, so overlapping flood fills merge.
+ * Players in different parts of the board change different longs and do not wait for each other.
+ * The game is won by whichever click opens the last safe tile and lost by whichever opens a bomb,
+ * and whichever of those happens first ends the game for everyone
+ */
+public class SharedBoard {
+
+    /**The states that a tile can be in**/
+    public static final int CLOSED = 0;
+    public static final int OPEN = 1;
+    public static final int FLAGGED = 2;
+    public static final int QUESTIONED = 3;
+
+    /**The number of rows in the board**/
+    private int rows;
+
+    /**The number of columns in the board**/
+    private int columns;
+
+    /**The number of bombs in the board**/
+    private int numBombs;
+
+    /**The board that the bombs are placed in, so that they are placed just as a Board with the same seed places them**/
+    private Board bombBoard;
+
+    /**The bombs and counts of neighboring bombs, which are only read once the bombs are set**/
+    private TileStore bombs;
+
+    /**True once the bombs are placed, which publishes them to every thread**/
+    private volatile boolean areBombsSet;
+
+    /**The state of each tile, 2 bits per tile and 32 tiles per long**/
+    private AtomicLongArray states;
+
+    /**The number of open tiles that are not bombs**/
+    private AtomicInteger openSafeCount;
+
+    /**The number of flagged tiles**/
+    private AtomicInteger flagCount;
+
+    /**The state of the game, which only ever moves from RUNNING to LOSSSTOPPED or WINSTOPPED**/
+    private AtomicInteger gameState;
+
+    /**The index of the bomb that was opened, or -1 if none has been**/
+    private volatile int openedBomb;
+
+    /**The clock used to time the game**/
+    private Clock clock;
+
+    /**The time of the first click, or Long.MIN_VALUE before it**/
+    private AtomicLong startTime;
+
+    /**The time the game was won or lost, or Long.MIN_VALUE before it. It is set before the game state is,
+     * so whoever sees that the game is over also sees when it ended**/
+    private AtomicLong endTime;
+
+    /**
+     * The constructor for a shared board
+     * @param rows the number of rows
+     * @param columns the number of columns
+     * @param numBombs the number of bombs
+     * @param seed the seed that the bombs are placed with
+     * @param clock the clock used to time the game
+     */
+    public SharedBoard(int rows, int columns, int numBombs, long seed, Clock clock){
+        this.rows = rows;
+        this.columns = columns;
+        this.numBombs = numBombs;
+        this.bombBoard = new Board(rows, columns, numBombs, seed, clock);
+        this.bombs = bombBoard.getTiles();
+        this.states = new AtomicLongArray((rows * columns + 31) >>> 5);
+        this.openSafeCount = new AtomicInteger();
+        this.flagCount = new AtomicInteger();
+        this.gameState = new AtomicInteger(Board.RUNNING);
+        this.openedBomb = -1;
+        this.clock = clock;
+        this.startTime = new AtomicLong(Long.MIN_VALUE);
+        this.endTime = new AtomicLong(Long.MIN_VALUE);
+    }
+
+    /**
+     * Sets whether the first click always opens an area. It only has an effect before the first click
+     * @param safeOpening true if the first click should have no neighboring bombs
+     */
+    public void setSafeOpening(boolean safeOpening){
+        bombBoard.setSafeOpening(safeOpening);
+    }
+
+    /**
+     * Places the bombs around the first click, unless another thread already has
+     * @param r the row of the click
+     * @param c the column of the click
+     */
+    private synchronized void placeBombs(int r, int c){
+        if(!areBombsSet){
+            bombBoard.placeBombs(r, c);
+            areBombsSet = true;
+        }
+    }
+
+    /**
+     * Returns the state of a tile
+     * @param i the index of the tile
+     * @return CLOSED, OPEN, FLAGGED or QUESTIONED
+     */
+    public int getState(int i){
+        return (int) (states.get(i >>> 5) >>> ((i & 31) << 1)) & 3;
+    }
+
+    /**
+     * Changes the state of a tile if no other thread has changed it first
+     * @param i the index of the tile
+     * @param expect the state the tile must be in
+     * @param update the state to change it to
+     * @return true if the tile was changed, or false if it was not in the expected state
+     */
+    private boolean compareAndSetState(int i, int expect, int update){
+        int w = i >>> 5;
+        int shift = (i & 31) << 1;
+        while(true){
+            long word = states.get(w);
+            if(((word >>> shift) & 3) != expect){
+                return false;
+            }
+            long next = (word & ~(3L << shift)) | ((long) update << shift);
+            if(states.compareAndSet(w, word, next)){
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Left clicks a tile, opening it, or opening its neighbors if it is open and has as many flags
+     * around it as bombs. Clicks are ignored once the game is over
+     * @param r row of click
+     * @param c column of click
+     * @return the indices of the tiles that this click opened, which no other click also opened
+     */
+    public IntList leftClick(int r, int c){
+        IntList revealed = new IntList();
+        if(r < 0 || r >= rows || c < 0 || c >= columns || gameState.get() != Board.RUNNING){
+            return revealed;
+        }
+        startTimer();
+        int i = r*columns + c;
+        int state = getState(i);
+        if(state == FLAGGED){
+            return revealed;
+        }
+        if(!areBombsSet){
+            placeBombs(r, c);
+        }
+
+        IntList toSweep = new IntList();
+        if(state == OPEN){
+            if(bombs.getNumNeighboringBombs(i) == numNeighboringFlags(r, c)){
+                revealNeighbors(r, c, revealed, toSweep);
+            }
+        }else if(state == CLOSED){
+            revealTile(i, revealed, toSweep);
+        }
+        while(!toSweep.isEmpty()){
+            int next = toSweep.pop();
+            revealNeighbors(next / columns, next % columns, revealed, toSweep);
+        }
+        return revealed;
+    }
+
+    /**
+     * Returns the number of flagged tiles around a tile
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @return the number of neighboring flags
+     */
+    private int numNeighboringFlags(int row, int col){
+        int numFlags = 0;
+        for (int r = Math.max(0, row-1); r < Math.min(rows, row+2); r++) {
+            for (int c = Math.max(0, col-1); c < Math.min(columns, col+2); c++) {
+                if(getState(r*columns + c) == FLAGGED){
+                    numFlags++;
+                }
+            }
+        }
+        return numFlags;
+    }
+
+    /**
+     * Opens every closed tile in the 8 tile ring around a tile
+     * @param row the row of the center tile
+     * @param col the column of the center tile
+     * @param revealed the list that the indices of tiles opened are added to
+     * @param toSweep the stack that opened tiles with no neighboring bombs are pushed to
+     */
+    private void revealNeighbors(int row, int col, IntList revealed, IntList toSweep){
+        for (int r = Math.max(0, row-1); r < Math.min(rows, row+2); r++) {
+            for (int c = Math.max(0, col-1); c < Math.min(columns, col+2); c++) {
+                revealTile(r*columns + c, revealed, toSweep);
+            }
+        }
+    }
+
+    /**
+     * Opens a tile if it is closed, which only one thread can do. The thread that opens it counts it,
+     * ends the game if it was a bomb or the last safe tile, and pushes it to be swept if it has no neighboring bombs
+     * @param i the index of the tile
+     * @param revealed the list that the index of the tile is added to if it is opened
+     * @param toSweep the stack that the tile is pushed to
+     */
+    private void revealTile(int i, IntList revealed, IntList toSweep){
+        if(!compareAndSetState(i, CLOSED, OPEN)){
+            return;
+        }
+        revealed.add(i);
+        if(bombs.checkIfBomb(i)){
+            openedBomb = i;
+            endGame(Board.LOSSSTOPPED);
+            return;
+        }
+        if(openSafeCount.incrementAndGet() == rows*columns - numBombs){
+            endGame(Board.WINSTOPPED);
+        }
+        if(bombs.getNumNeighboringBombs(i) == 0){
+            toSweep.add(i);
+        }
+    }
+
+    /**
+     * Ends the game if no other click has ended it first, stopping the timer and flagging every bomb on a win
+     * @param state LOSSSTOPPED or WINSTOPPED
+     */
+    private void endGame(int state){
+        //the end time is set before the state, so a thread that sees the game over never sees it unset
+        endTime.compareAndSet(Long.MIN_VALUE, clock.millis());
+        if(gameState.compareAndSet(Board.RUNNING, state)){
+            if(state == Board.WINSTOPPED){
+                for (int i = 0; i < rows*columns; i++) {
+                    if(bombs.checkIfBomb(i)){
+                        flag(i);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Flags a tile that is closed or questioned, counting the flag, however many threads try at once
+     * @param i the index of the tile
+     */
+    private void flag(int i){
+        while(true){
+            int state = getState(i);
+            if(state == OPEN || state == FLAGGED){
+                return;
+            }
+            if(compareAndSetState(i, state, FLAGGED)){
+                flagCount.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Right clicks a tile, moving it from closed to flagged, flagged to questioned or questioned to closed.
+     * Clicks are ignored once the game is over. A click that races a win can land after the winning click
+     * has flagged the tile, so a click that finds the game won once it has changed a bomb flags it again,
+     * and every bomb is left flagged however the clicks fall
+     * @param r row of click
+     * @param c column of click
+     */
+    public void rightClick(int r, int c){
+        if(r < 0 || r >= rows || c < 0 || c >= columns || gameState.get() != Board.RUNNING){
+            return;
+        }
+        startTimer();
+        int i = r*columns + c;
+        while(true){
+            int state = getState(i);
+            if(state == OPEN || gameState.get() != Board.RUNNING){
+                return;
+            }
+            int next = state == CLOSED ? FLAGGED : state == FLAGGED ? QUESTIONED : CLOSED;
+            if(compareAndSetState(i, state, next)){
+                if(next == FLAGGED){
+                    flagCount.incrementAndGet();
+                }else if(state == FLAGGED){
+                    flagCount.decrementAndGet();
+                }
+                if(gameState.get() == Board.WINSTOPPED && bombs.checkIfBomb(i)){
+                    flag(i);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Starts timing the game if no click has yet
+     */
+    private void startTimer(){
+        if(startTime.get() == Long.MIN_VALUE){
+            startTime.compareAndSet(Long.MIN_VALUE, clock.millis());
+        }
+    }
+
+    /**
+     * Returns how long the game has been played for, which stops counting once the game is won or lost
+     * @return the time since the first click in milliseconds, or 0 if there has been no click
+     */
+    public long getElapsedMillis(){
+        long start = startTime.get();
+        if(start == Long.MIN_VALUE){
+            return 0;
+        }
+        return (gameState.get() != Board.RUNNING ? endTime.get() : clock.millis()) - start;
+    }
+
+    /**
+     * Returns the state of the game, which is kept up to date by the clicks that end it
+     * @return RUNNING, LOSSSTOPPED or WINSTOPPED
+     */
+    public int getGameState(){ return gameState.get(); }
+
+    /**
+     * Returns the number of flagged tiles
+     * @return the number of flags
+     */
+    public int getFlagCount(){ return flagCount.get(); }
+
+    /**
+     * Returns the number of open tiles that are not bombs
+     * @return the number of safely opened tiles
+     */
+    public int getOpenSafeCount(){ return openSafeCount.get(); }
+
+    /**
+     * Returns the bomb that was opened, which is where the explosion is
+     * @return the index of the bomb, or -1 if no bomb has been opened
+     */
+    public int getOpenedBomb(){ return openedBomb; }
+
+    /**Returns if a tile is a bomb, which no tile is until the first click
+     * @param i the index of the tile
+     * @return if the tile is a bomb**/
+    public boolean checkIfBomb(int i){ return areBombsSet && bombs.checkIfBomb(i); }
+
+    /**Returns the amount of neighboring bombs of a tile, which is 0 for every tile until the first click
+     * @param i the index of the tile
+     * @return the number of neighboring (8 tile square) tiles that are bombs**/
+    public int getNumNeighboringBombs(int i){ return areBombsSet ? bombs.getNumNeighboringBombs(i) : 0; }
+
+    /**
+     * Returns the number of rows in the board
+     * @return the height of the board in tiles
+     */
+    public int getRows(){ return rows; }
+
+    /**
+     * Returns the number of columns in the board
+     * @return the width of the board in tiles
+     */
+    public int getColumns(){ return columns; }
+
+    /**
+     * Returns the number of bombs in the board
+     * @return the number of bombs
+     */
+    public int getNumBombs(){ return numBombs; }
+
+    /**
+     * Clears a board with more and more threads at once, each opening every safe tile in its own band of rows,
+     * and prints how fast they went and whether the board came out exactly won
+     * @param args the size of the board (default 2048) and the most threads (default one per core)
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 2048;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int numBombs = (int) (size * (long) size * 0.16);
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            SharedBoard board = new SharedBoard(size, size, numBombs, 42, Clock.SYSTEM);
+            board.setSafeOpening(true);
+            board.leftClick(size / 2, size / 2);
+            Thread[] players = new Thread[threads];
+            AtomicLong revealed = new AtomicLong();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int first = size * t / threads;
+                int last = size * (t + 1) / threads;
+                long seed = t;
+                players[t] = new Thread(() -> {
+                    SplittableRandom random = new SplittableRandom(seed);
+                    long opened = 0;
+                    //open tiles at random first so that flood fills from different threads meet, then every tile left
+                    for (int k = 0; k < (last - first) * size / 64; k++) {
+                        int i = (first + random.nextInt(last - first)) * size + random.nextInt(size);
+                        if(!board.checkIfBomb(i) && board.getState(i) == CLOSED){
+                            opened += board.leftClick(i / size, i % size).size();
+                        }
+                    }
+                    for (int i = first * size; i < last * size; i++) {
+                        if(!board.checkIfBomb(i) && board.getState(i) == CLOSED){
+                            opened += board.leftClick(i / size, i % size).size();
+                        }
+                    }
+                    revealed.addAndGet(opened);
+                });
+                players[t].start();
+            }
+            for (Thread player : players) {
+                player.join();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            int open = 0;
+            for (int i = 0; i < size * size; i++) {
+                if(board.getState(i) == OPEN){
+                    open++;
+                }
+            }
+            boolean isExact = board.getGameState() == Board.WINSTOPPED && board.getOpenedBomb() == -1
+                    && board.getOpenSafeCount() == size * size - numBombs && open == board.getOpenSafeCount()
+                    && board.getFlagCount() == numBombs;
+            System.out.printf("%d threads: %.1fms, %.1fM tiles opened/s, %s%n", threads, seconds * 1000,
+                    revealed.get() / seconds / 1e6, isExact ? "won exactly" : "NOT EXACT: state " + board.getGameState()
+                            + ", " + board.getOpenSafeCount() + " safe tiles counted, " + open + " open");
+        }
+    }
+
+}
@@ -0,0 +1,337 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Plays many seeded games with a strategy on every core, without drawing anything, to measure
+ * how often and how quickly the strategy wins. The games are split among the threads of a
+ * fork join pool, and each thread has its games played by a Player with its own strategy on a thread
+ * of its own, which it watches so that a strategy that hangs forfeits its game and is left behind
+ */
+public final class Simulator {
+
+    /**The number of games each thread plays before it stops splitting the work**/
+    private static final int GAMES_PER_TASK = 64;
+
+    /**Private constructor so that Simulator cannot be instantiated**/
+    private Simulator(){ }
+
+    /**
+     * The results of playing a number of games
+     */
+    public static class Results {
+
+        /**The number of games played**/
+        long games;
+
+        /**The number of games won**/
+        long wins;
+
+        /**The number of games forfeited by going over the time budget for a move**/
+        long timeouts;
+
+        /**The number of moves made over all games**/
+        long moves;
+
+        /**The time taken to choose each move**/
+        LatencyHistogram moveLatency = new LatencyHistogram();
+
+        /**
+         * Adds the results of other games to these
+         * @param other the other results
+         */
+        void add(Results other){
+            games += other.games;
+            wins += other.wins;
+            timeouts += other.timeouts;
+            moves += other.moves;
+            moveLatency.add(other.moveLatency);
+        }
+
+        /**Returns the number of games played
+         * @return the number of games**/
+        public long getGames(){ return games; }
+
+        /**Returns the fraction of games won
+         * @return the win rate, from 0 to 1**/
+        public double getWinRate(){ return games == 0 ? 0 : (double) wins / games; }
+
+        /**Returns the number of games forfeited by going over the time budget
+         * @return the number of timeouts**/
+        public long getTimeouts(){ return timeouts; }
+
+        /**Returns the average number of moves made in a game
+         * @return the average number of clicks**/
+        public double getAverageMoves(){ return games == 0 ? 0 : (double) moves / games; }
+
+        /**Returns the times taken to choose each move
+         * @return the histogram of move latencies**/
+        public LatencyHistogram getMoveLatency(){ return moveLatency; }
+
+    }
+
+    /**
+     * Plays a number of games on boards of one size across every core
+     * @param rows the number of rows in each board
+     * @param columns the number of columns in each board
+     * @param numBombs the number of bombs in each board
+     * @param games the number of games to play
+     * @param seed the seed that each game's seed is made from, so the same seed plays the same boards
+     * @param strategies makes a new strategy for each thread
+     * @param moveBudgetNanos the longest a strategy may take to choose a move before the game is forfeited
+     * @return the results of the games
+     */
+    public static Results run(int rows, int columns, int numBombs, int games, long seed,
+                              Supplier<Strategy> strategies, long moveBudgetNanos){
+        return ForkJoinPool.commonPool().invoke(new Games(rows, columns, numBombs, 0, games, seed, strategies, moveBudgetNanos));
+    }
+
+    /**
+     * A range of games that splits itself in half until it is small enough to play on one thread
+     */
+    private static class Games extends RecursiveTask<Results> {
+
+        private static final long serialVersionUID = 1L;
+
+        private int rows;
+        private int columns;
+        private int numBombs;
+        private int first;
+        private int last;
+        private long seed;
+        private Supplier<Strategy> strategies;
+        private long moveBudgetNanos;
+
+        /**
+         * The constructor for a range of games
+         * @param rows the number of rows in each board
+         * @param columns the number of columns in each board
+         * @param numBombs the number of bombs in each board
+         * @param first the number of the first game in the range
+         * @param last one past the number of the last game in the range
+         * @param seed the seed that each game's seed is made from
+         * @param strategies makes a new strategy for each thread
+         * @param moveBudgetNanos the longest a strategy may take to choose a move
+         */
+        Games(int rows, int columns, int numBombs, int first, int last, long seed,
+              Supplier<Strategy> strategies, long moveBudgetNanos){
+            this.rows = rows;
+            this.columns = columns;
+            this.numBombs = numBombs;
+            this.first = first;
+            this.last = last;
+            this.seed = seed;
+            this.strategies = strategies;
+            this.moveBudgetNanos = moveBudgetNanos;
+        }
+
+        /**
+         * Plays the range of games, or splits it and plays both halves at once
+         * @return the results of the games
+         */
+        protected Results compute(){
+            if(last - first > GAMES_PER_TASK){
+                int middle = (first + last) >>> 1;
+                Games left = new Games(rows, columns, numBombs, first, middle, seed, strategies, moveBudgetNanos);
+                Games right = new Games(rows, columns, numBombs, middle, last, seed, strategies, moveBudgetNanos);
+                left.fork();
+                Results results = right.compute();
+                results.add(left.join());
+                return results;
+            }
+            Results results = new Results();
+            int game = first;
+            while(game < last){
+                //a player that is given up on leaves the rest of the games to a new one with a new strategy
+                Player player = new Player(rows, columns, numBombs, game, last, seed, strategies.get(), moveBudgetNanos);
+                watch(player);
+                results.add(player.results);
+                game = player.game;
+            }
+            return results;
+        }
+
+        /**
+         * Runs a player on a thread of its own and waits for it to finish its games, giving up on it if it takes
+         * longer than the budget to choose a move. The thread is interrupted then, but is left to itself if it does not stop
+         * @param player the player
+         */
+        private void watch(Player player){
+            ExecutorService thread = Executors.newSingleThreadExecutor(task -> {
+                Thread daemon = new Thread(task, "Simulator player");
+                daemon.setDaemon(true);
+                return daemon;
+            });
+            try {
+                Future<?> future = thread.submit(player);
+                while(true){
+                    try {
+                        future.get(moveBudgetNanos, TimeUnit.NANOSECONDS);
+                        return;
+                    } catch (TimeoutException e) {
+                        if(player.abandonIfOverBudget()){
+                            future.cancel(true);
+                            return;
+                        }
+                    }
+                }
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Strategy failed to choose a move", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for games", e);
+            } finally {
+                thread.shutdownNow();
+            }
+        }
+
+    }
+
+    /**
+     * Plays a range of games with one strategy. The time the move being chosen was started at is kept
+     * where the thread watching the player can see it, and whichever of the two threads first swaps it
+     * out decides whether the move was made in time, so a player that has been given up on never touches
+     * its results again even if its strategy does return
+     */
+    private static class Player implements Runnable {
+
+        /**The values of moveStart when no move is being chosen, and once the player has been given up on**/
+        private static final long IDLE = Long.MIN_VALUE;
+        private static final long ABANDONED = Long.MAX_VALUE;
+
+        private int rows;
+        private int columns;
+        private int numBombs;
+        private int last;
+        private long seed;
+        private Strategy strategy;
+        private long moveBudgetNanos;
+
+        /**The number of the game being played, which is one past the last game played once the player stops**/
+        int game;
+
+        /**The results of the games played**/
+        Results results;
+
+        /**The time the move being chosen was started at, IDLE or ABANDONED**/
+        private AtomicLong moveStart;
+
+        /**
+         * The constructor for a player of a range of games
+         * @param rows the number of rows in each board
+         * @param columns the number of columns in each board
+         * @param numBombs the number of bombs in each board
+         * @param first the number of the first game in the range
+         * @param last one past the number of the last game in the range
+         * @param seed the seed that each game's seed is made from
+         * @param strategy the strategy that plays the games
+         * @param moveBudgetNanos the longest the strategy may take to choose a move
+         */
+        Player(int rows, int columns, int numBombs, int first, int last, long seed,
+               Strategy strategy, long moveBudgetNanos){
+            this.rows = rows;
+            this.columns = columns;
+            this.numBombs = numBombs;
+            this.game = first;
+            this.last = last;
+            this.seed = seed;
+            this.strategy = strategy;
+            this.moveBudgetNanos = moveBudgetNanos;
+            this.results = new Results();
+            this.moveStart = new AtomicLong(IDLE);
+        }
+
+        /**
+         * Plays the games in turn until they are all played or the player is given up on
+         */
+        public void run(){
+            for (; game < last; game++) {
+                long gameSeed = new SplittableRandom(seed + game).nextLong();
+                if(!play(new Board(rows, columns, numBombs, gameSeed, Clock.SYSTEM))){
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Plays one game to the end
+         * @param board the board, which has not been clicked
+         * @return false if the player was given up on while choosing a move
+         */
+        private boolean play(Board board){
+            results.games++;
+            //a strategy that keeps making moves that change nothing gives up eventually
+            long movesLeft = 2L * board.getRows() * board.getColumns();
+            while(board.getGameState() == Board.RUNNING && movesLeft-- > 0){
+                long start = System.nanoTime();
+                moveStart.set(start);
+                Move move = strategy.nextMove(board);
+                long latency = System.nanoTime() - start;
+                if(!moveStart.compareAndSet(start, IDLE)){
+                    return false;
+                }
+                results.moveLatency.record(latency);
+                if(latency > moveBudgetNanos){
+                    results.timeouts++;
+                    return true;
+                }
+                if(move == null){
+                    return true;
+                }
+                move.apply(board);
+                results.moves++;
+            }
+            if(board.getGameState() == Board.WINSTOPPED){
+                results.wins++;
+            }
+            return true;
+        }
+
+        /**
+         * Gives up on the player if its strategy has been choosing a move for longer than the budget,
+         * forfeiting the game it is playing
+         * @return true if the player was given up on, after which it does not change its results or game
+         */
+        boolean abandonIfOverBudget(){
+            long start = moveStart.get();
+            if(start == IDLE || System.nanoTime() - start <= moveBudgetNanos || !moveStart.compareAndSet(start, ABANDONED)){
+                return false;
+            }
+            results.moveLatency.record(moveBudgetNanos);
+            results.timeouts++;
+            game++;
+            return true;
+        }
+
+    }
+
+    /**
+     * Plays the beginner, intermediate and expert boards with the AI and prints the results
+     * @param args the number of games per board (default 10000) and the move budget in milliseconds (default 100)
+     */
+    public static void main(String[] args){
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        long budget = TimeUnit.MILLISECONDS.toNanos(args.length > 1 ? Long.parseLong(args[1]) : 100);
+        int[][] boards = {{9, 9, 10}, {16, 16, 40}, {16, 30, 99}};
+        System.out.println("Playing " + games + " games per board on " + ForkJoinPool.commonPool().getParallelism() + " threads");
+        for (int[] b : boards) {
+            long start = System.nanoTime();
+            Results results = run(b[0], b[1], b[2], games, 0, AI::new, budget);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            LatencyHistogram latency = results.getMoveLatency();
+            System.out.printf("%dx%d/%d: %.0f games/s, %.2f%% won, %d timeouts, %.1f clicks/game, move latency p50 %.1fus p90 %.1fus p99 %.1fus max %.1fus%n",
+                    b[0], b[1], b[2], results.getGames() / seconds, 100 * results.getWinRate(), results.getTimeouts(),
+                    results.getAverageMoves(), latency.getPercentile(0.5) / 1e3, latency.getPercentile(0.9) / 1e3,
+                    latency.getPercentile(0.99) / 1e3, latency.getMax() / 1e3);
+        }
+    }
+
+}
@@ -0,0 +1,304 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A solver that finds every move on a board that can be deduced for certain from
+ * the open tiles, without ever guessing. It only looks at what a player could see,
+ * so it can be used to check that a board can be solved without guessing.
+ * The solver listens to the board and keeps a queue of the open tiles whose neighbors
+ * have changed, so it only ever looks again at the part of the board that changed.
+ * A tile is solved on its own if all its bombs are flagged, or if it has as many unknown
+ * neighbors as bombs left; otherwise it is compared with the open tiles near it, and if
+ * one's unknown neighbors are a subset of the other's, the bombs in the difference are known
+ */
+public class Solver implements TileListener {
+
+    /**The board being solved**/
+    private Board board;
+
+    /**The tiles of the board being solved**/
+    private TileStore tiles;
+
+    /**The number of rows in the board**/
+    private int rows;
+
+    /**The number of columns in the board**/
+    private int columns;
+
+    /**The open tiles that need to be looked at again**/
+    private IntList queue;
+
+    /**One bit per tile, set if the tile is in the queue**/
+    private long[] isQueued;
+
+    /**Tiles that have been deduced to be safe but not yet opened**/
+    private IntList safeTiles;
+
+    /**Tiles that have been deduced to be bombs but not yet flagged**/
+    private IntList bombTiles;
+
+    /**One bit per tile, set if the tile has been deduced to be safe or a bomb**/
+    private long[] isDeduced;
+
+    /**The unknown neighbors of the tile being solved, and how many there are**/
+    private int[] unknownA = new int[8];
+    private int numUnknownA;
+
+    /**The unknown neighbors of the tile it is being compared with, and how many there are**/
+    private int[] unknownB = new int[8];
+    private int numUnknownB;
+
+    /**The number of unknown neighbors found by the last call to unknownNeighbors**/
+    private int numUnknown;
+
+    /**
+     * The constructor for a solver of a board, which looks at every open tile once
+     * and from then on only at tiles that change
+     * @param board the board to solve
+     */
+    public Solver(Board board){
+        this.board = board;
+        this.tiles = board.getTiles();
+        this.rows = board.getRows();
+        this.columns = board.getColumns();
+        int words = (rows*columns + 63) >>> 6;
+        queue = new IntList();
+        isQueued = new long[words];
+        safeTiles = new IntList();
+        bombTiles = new IntList();
+        isDeduced = new long[words];
+        for (int i = 0; i < rows*columns; i++) {
+            enqueue(i);
+        }
+        board.addTileListener(this);
+    }
+
+    /**
+     * Stops the solver from listening to its board
+     */
+    public void close(){
+        board.removeTileListener(this);
+    }
+
+    /**
+     * Returns the board being solved
+     * @return the board
+     */
+    public Board getBoard(){
+        return board;
+    }
+
+    /**
+     * Queues the open tiles around a tile that changed, since their unknown neighbors have changed
+     * @param i the index of the tile that changed
+     */
+    public void tileChanged(int i){
+        if(!tiles.isOpen(i) && !tiles.isFlagged(i)){
+            //a flag was taken off, so whatever was deduced about the tile is looked at again
+            isDeduced[i >>> 6] &= ~(1L << i);
+        }
+        int row = i / columns;
+        int col = i % columns;
+        int rowMax = Math.min(rows, row+2);
+        int colMax = Math.min(columns, col+2);
+        for (int r = Math.max(0, row-1); r < rowMax; r++) {
+            for (int c = Math.max(0, col-1); c < colMax; c++) {
+                enqueue(r*columns + c);
+            }
+        }
+    }
+
+    /**
+     * Adds an open tile with neighboring bombs to the queue if it is not already in it
+     * @param i the index of the tile
+     */
+    private void enqueue(int i){
+        if(tiles.isOpen(i) && tiles.getNumNeighboringBombs(i) > 0 && (isQueued[i >>> 6] & (1L << i)) == 0){
+            isQueued[i >>> 6] |= 1L << i;
+            queue.add(i);
+        }
+    }
+
+    /**
+     * Returns the next move that is known for certain, working through the queue until one is found
+     * @return the move, or null if no move can be deduced
+     */
+    public Move nextMove(){
+        while(true){
+            while(!safeTiles.isEmpty()){
+                int i = safeTiles.pop();
+                if(tiles.isClosed(i)){
+                    return new Move(i / columns, i % columns, false);
+                }
+            }
+            while(!bombTiles.isEmpty()){
+                int i = bombTiles.pop();
+                if(tiles.isClosed(i)){
+                    return new Move(i / columns, i % columns, true);
+                }
+            }
+            if(queue.isEmpty()){
+                return null;
+            }
+            int i = queue.pop();
+            isQueued[i >>> 6] &= ~(1L << i);
+            solveTile(i);
+        }
+    }
+
+    /**
+     * Plays moves until the game is over or no more moves can be deduced
+     * @param stop a flag that stops the solver early once it is set
+     * @return true if the game was won
+     */
+    public boolean solve(AtomicBoolean stop){
+        Move move;
+        while(board.getGameState() == Board.RUNNING && !stop.get() && (move = nextMove()) != null){
+            move.apply(board);
+        }
+        return board.getGameState() == Board.WINSTOPPED;
+    }
+
+    /**
+     * Deduces what it can from one open tile, first on its own and then compared with the open tiles near it
+     * @param a the index of the open tile
+     */
+    private void solveTile(int a){
+        int bombsLeftA = unknownNeighbors(a, unknownA);
+        numUnknownA = numUnknown;
+        if(numUnknownA == 0){
+            return;
+        }
+        if(bombsLeftA == 0 || bombsLeftA == numUnknownA){
+            deduceAll(unknownA, numUnknownA, bombsLeftA != 0);
+            return;
+        }
+
+        //only tiles within two rows and columns can share unknown neighbors
+        int row = a / columns;
+        int col = a % columns;
+        int rowMax = Math.min(rows, row+3);
+        int colMax = Math.min(columns, col+3);
+        for (int r = Math.max(0, row-2); r < rowMax; r++) {
+            for (int c = Math.max(0, col-2); c < colMax; c++) {
+                int b = r*columns + c;
+                if(b == a || !tiles.isOpen(b) || tiles.getNumNeighboringBombs(b) == 0){
+                    continue;
+                }
+                int bombsLeftB = unknownNeighbors(b, unknownB);
+                numUnknownB = numUnknown;
+                if(numUnknownB == 0){
+                    continue;
+                }
+                if(isSubset(unknownA, numUnknownA, unknownB, numUnknownB)){
+                    deduceDifference(unknownB, numUnknownB, unknownA, numUnknownA, bombsLeftB - bombsLeftA);
+                }else if(isSubset(unknownB, numUnknownB, unknownA, numUnknownA)){
+                    deduceDifference(unknownA, numUnknownA, unknownB, numUnknownB, bombsLeftA - bombsLeftB);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the neighbors of an open tile that are neither open nor flagged
+     * @param i the index of the open tile
+     * @param unknown the array the unknown neighbors are put in, with numUnknown set to how many there are
+     * @return the number of the tile's bombs that are not flagged
+     */
+    private int unknownNeighbors(int i, int[] unknown){
+        int row = i / columns;
+        int col = i % columns;
+        int rowMax = Math.min(rows, row+2);
+        int colMax = Math.min(columns, col+2);
+        int bombsLeft = tiles.getNumNeighboringBombs(i);
+        numUnknown = 0;
+        for (int r = Math.max(0, row-1); r < rowMax; r++) {
+            for (int c = Math.max(0, col-1); c < colMax; c++) {
+                int n = r*columns + c;
+                if(tiles.isFlagged(n)){
+                    bombsLeft--;
+                }else if(!tiles.isOpen(n)){
+                    unknown[numUnknown++] = n;
+                }
+            }
+        }
+        return bombsLeft;
+    }
+
+    /**
+     * Returns true if every tile in one set is also in another
+     * @param small the set that may be a subset
+     * @param numSmall the size of small
+     * @param large the set that may contain it
+     * @param numLarge the size of large
+     * @return if small is a subset of large
+     */
+    private static boolean isSubset(int[] small, int numSmall, int[] large, int numLarge){
+        if(numSmall > numLarge){
+            return false;
+        }
+        for (int s = 0; s < numSmall; s++) {
+            boolean isFound = false;
+            for (int l = 0; l < numLarge && !isFound; l++) {
+                isFound = small[s] == large[l];
+            }
+            if(!isFound){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Deduces the tiles of a larger set that are not in a smaller subset of it, if the bombs in them are known
+     * @param large the larger set
+     * @param numLarge the size of large
+     * @param small the smaller set
+     * @param numSmall the size of small
+     * @param bombsInDifference the number of bombs in large that are not in small
+     */
+    private void deduceDifference(int[] large, int numLarge, int[] small, int numSmall, int bombsInDifference){
+        int difference = numLarge - numSmall;
+        if(difference == 0 || (bombsInDifference != 0 && bombsInDifference != difference)){
+            return;
+        }
+        for (int l = 0; l < numLarge; l++) {
+            boolean isInSmall = false;
+            for (int s = 0; s < numSmall && !isInSmall; s++) {
+                isInSmall = large[l] == small[s];
+            }
+            if(!isInSmall){
+                deduce(large[l], bombsInDifference != 0);
+            }
+        }
+    }
+
+    /**
+     * Deduces every tile in a set to be safe, or every tile to be a bomb
+     * @param set the tiles
+     * @param size the number of tiles in the set
+     * @param isBomb true if they are all bombs, false if they are all safe
+     */
+    private void deduceAll(int[] set, int size, boolean isBomb){
+        for (int s = 0; s < size; s++) {
+            deduce(set[s], isBomb);
+        }
+    }
+
+    /**
+     * Records that a tile is known to be safe or a bomb, unless it already was
+     * @param i the index of the tile
+     * @param isBomb true if the tile is a bomb, false if it is safe
+     */
+    private void deduce(int i, boolean isBomb){
+        if((isDeduced[i >>> 6] & (1L << i)) != 0){
+            return;
+        }
+        isDeduced[i >>> 6] |= 1L << i;
+        if(isBomb){
+            bombTiles.add(i);
+        }else{
+            safeTiles.add(i);
+        }
+    }
+
+}
@@ -0,0 +1,181 @@
+import processing.core.PApplet;
+import processing.core.PGraphics;
+import processing.core.PImage;
+
+import java.util.Arrays;
+
+/**
+ * A cache of the game's images resized to the sizes they are drawn at.
+ * Every image is resized once, when the sizes change, and packed into one atlas
+ * image, so drawing an image is an unscaled copy out of the atlas. While the tile size keeps changing,
+ * as it does on every step of zooming, the atlas is not rebuilt; the sprites are drawn scaled from the
+ * atlas they are in until the tile size has stayed the same for REBUILDDELAYMILLIS
+ */
+public class SpriteCache {
+
+    /**The widest the atlas is allowed to be before sprites wrap onto a new shelf**/
+    private static final int MAX_ATLAS_WIDTH = 4096;
+
+    /**How long the tile size must stay the same before the atlas is rebuilt for it, in milliseconds**/
+    private static final int REBUILDDELAYMILLIS = 250;
+
+    /**The PApplet used to make the atlas**/
+    private PApplet p;
+
+    /**The images that are used in the game, at their original size**/
+    private PImage[] images;
+
+    /**The atlas that every resized image is packed into, or null if it has not been built**/
+    private PImage atlas;
+
+    /**The tile size the sprites are drawn at**/
+    private int tileSize;
+
+    /**The reset button size the sprites are drawn at**/
+    private int buttonSide;
+
+    /**The tile size the atlas was built for**/
+    private int builtTileSize;
+
+    /**The time the tile size last changed**/
+    private int changedMillis;
+
+    /**The number of times the atlas has been built, so that anything drawn from it can tell when it has changed**/
+    private int version;
+
+    /**The x coordinate of each image in the atlas**/
+    private int[] spriteX;
+
+    /**The y coordinate of each image in the atlas**/
+    private int[] spriteY;
+
+    /**The size of each image in the atlas**/
+    private int[] spriteSize;
+
+    /**
+     * The constructor for an empty sprite cache
+     * @param p the PApplet used to make the atlas
+     * @param images the images that are used in the game
+     */
+    public SpriteCache(PApplet p, PImage[] images){
+        this.p = p;
+        this.images = images;
+        spriteX = new int[images.length];
+        spriteY = new int[images.length];
+        spriteSize = new int[images.length];
+    }
+
+    /**
+     * Sets the sizes that images are drawn at. Tiles are drawn at the tile size, explosions at three tiles,
+     * the reset buttons at the button size and the settings button at half of it. The atlas is rebuilt
+     * at once if there is none or the button size has changed, and if only the tile size has changed,
+     * by update once the tile size has stayed the same for long enough
+     * @param tileSize the size of a tile
+     * @param buttonSide the size of the reset button
+     */
+    public void setSizes(int tileSize, int buttonSide){
+        if(tileSize != this.tileSize){
+            changedMillis = p.millis();
+        }
+        this.tileSize = tileSize;
+        if(atlas == null || buttonSide != this.buttonSide){
+            this.buttonSide = buttonSide;
+            build();
+        }
+    }
+
+    /**
+     * Rebuilds the atlas if the tile size it was built for is not the one sprites are drawn at, and the
+     * tile size has stayed the same for REBUILDDELAYMILLIS. This is called once a frame, before anything is drawn
+     */
+    public void update(){
+        if(atlas != null && tileSize != builtTileSize && p.millis() - changedMillis >= REBUILDDELAYMILLIS){
+            build();
+        }
+    }
+
+    /**
+     * Returns the number of times the atlas has been built, which changes whenever the sprites drawn from it
+     * have been resized to the sizes they are drawn at
+     * @return the version of the atlas
+     */
+    public int getVersion(){
+        return version;
+    }
+
+    /**
+     * Resizes every image to the size it is drawn at and packs them into a new atlas
+     */
+    private void build(){
+        builtTileSize = tileSize;
+        version++;
+        for (int i = 0; i < images.length; i++) {
+            spriteSize[i] = Math.max(1, sizeOf(i));
+        }
+
+        //pack the sprites onto shelves, each as tall as its first and largest sprite
+        Integer[] order = new Integer[images.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> spriteSize[b] - spriteSize[a]);
+        int x = 0;
+        int y = 0;
+        int shelfHeight = 0;
+        int width = 0;
+        for (int i : order) {
+            if(x > 0 && x + spriteSize[i] > MAX_ATLAS_WIDTH){
+                x = 0;
+                y += shelfHeight;
+                shelfHeight = 0;
+            }
+            spriteX[i] = x;
+            spriteY[i] = y;
+            x += spriteSize[i];
+            shelfHeight = Math.max(shelfHeight, spriteSize[i]);
+            width = Math.max(width, x);
+        }
+
+        atlas = p.createImage(width, y + shelfHeight, PApplet.ARGB);
+        for (int i = 0; i < images.length; i++) {
+            PImage sprite = images[i].get();
+            sprite.resize(spriteSize[i], spriteSize[i]);
+            atlas.set(spriteX[i], spriteY[i], sprite);
+        }
+    }
+
+    /**
+     * Returns the size an image is drawn at
+     * @param image the index of the image
+     * @return the size in pixels of a side of the image
+     */
+    private int sizeOf(int image){
+        if(image >= 19 && image <= 22){
+            return tileSize*3;
+        }
+        if(image >= 13 && image <= 15){
+            return buttonSide;
+        }
+        if(image == 16){
+            return buttonSide/2;
+        }
+        return tileSize;
+    }
+
+    /**
+     * Draws an image at the size it is drawn at, which is an unscaled copy unless the tile size
+     * has changed since the atlas was built
+     * @param g the graphics to draw on
+     * @param image the index of the image
+     * @param x the x coordinate of the top left corner
+     * @param y the y coordinate of the top left corner
+     */
+    public void draw(PGraphics g, int image, int x, int y){
+        int cached = spriteSize[image];
+        int size = tileSize == builtTileSize ? cached : Math.max(1, sizeOf(image));
+        int u = spriteX[image];
+        int v = spriteY[image];
+        g.image(atlas, x, y, size, size, u, v, u + cached, v + cached);
+    }
+
+}
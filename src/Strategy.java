@@ -0,0 +1,15 @@
+/**
+ * A way of playing minesweeper, one move at a time, so that bots can be swapped
+ * in and out of the game and the Simulator
+ */
+public interface Strategy {
+
+    /**
+     * Chooses the next move to make on a board. The board is only changed by the caller,
+     * by applying the move that is returned
+     * @param board the board being played, which has not been won or lost
+     * @return the move to make, or null to give up
+     */
+    Move nextMove(Board board);
+
+}
@@ -1,170 +1,101 @@
 /**
- * The tile class that holds all the information and functions of a tile
- * in a game of minesweeper
+ * The tile class that gives access to all the information and functions of a tile
+ * in a game of minesweeper. A tile is a thin view of one position in a board's
+ * TileStore, so it holds no state of its own and can be made whenever one is needed
  */
 public class Tile {
 
-    /**Gives info about the state of the tile
-     * 0 = covered, 1 = flagged, 2 = uncovered, 3 = questioned**/
-    private int state;
-    private final static int QUESTIONED = 3;
-    private final static int OPEN = 2;
-    private final static int FLAGGED = 1;
-    private final static int CLOSED = 0;
+    /**The store that holds this tile's state**/
+    private TileStore store;
 
-    private boolean isHovered;
-
-    /**True if tile is a bomb, otherwise false**/
-    private boolean isBomb;
-
-    /**The number of bombs in the 8 tile ring
-     * around the tile**/
-    private int numNeighboringBombs;
+    /**The index of this tile in the store**/
+    private int index;
 
     /**
-     * The default constructor for the tile class
+     * The constructor for a view of one tile in a store
+     * @param store the store that holds the tile
+     * @param row the row of this tile
+     * @param col the column of this tile
      */
-    public Tile(){
-        state = CLOSED;
-        isBomb = false;
-        isHovered = false;
+    public Tile(TileStore store, int row, int col){
+        this.store = store;
+        this.index = row * store.getColumns() + col;
     }
 
     /**Sets this tile to "be" a bomb tile**/
     public void setAsBomb(){
-        isBomb = true;
-    }
-
-    /**
-     * Sets numNeighboringBombs equal to the amount of neighboring bombs
-     * @param board the board the tile is in
-     * @param row the row of this tile
-     * @param col the column of this tile
-     */
-    public void countNeighboringBombs(Tile[][] board, int row, int col){
-        numNeighboringBombs = 0;
-        int rowMin = Math.max(0, row-1);
-        int rowMax = Math.min(board.length, row+2);
-        int colMin = Math.max(0, col-1);
-        int colMax = Math.min(board[0].length, col+2);
-        for (int r = rowMin; r < rowMax; r++) {
-            for (int c = colMin; c < colMax; c++) {
-                if(board[r][c].checkIfBomb()){
-                    numNeighboringBombs++;
-                }
-            }
-        }
+        store.setAsBomb(index);
     }
 
     /**
      * returns an int equal to the amount of neighboring flags
-     * @param board the board the tile is in
-     * @param row the row of this tile
-     * @param col the column of this tile
      * @return the number of neighboring (8 tile square) flagged tiles
      */
-    public int numNeighboringFlags(Tile[][] board, int row, int col){
-        int numNeighboringFlags = 0;
-        int rowMin = Math.max(0, row-1);
-        int rowMax = Math.min(board.length, row+2);
-        int colMin = Math.max(0, col-1);
-        int colMax = Math.min(board[0].length, col+2);
-        for (int r = rowMin; r < rowMax; r++) {
-            for (int c = colMin; c < colMax; c++) {
-                if(board[r][c].isFlagged()){
-                    numNeighboringFlags++;
-                }
-            }
-        }
-        return numNeighboringFlags;
+    public int numNeighboringFlags(){
+        return store.numNeighboringFlags(index);
     }
 
     /**
      * returns an int equal to the amount of neighboring closed tiles
-     * @param board the board the tile is in
-     * @param row the row of this tile
-     * @param col the column of this tile
      * @return the number of neighboring (8 tile square) closed tiles
      */
-    public int numNeighboringClosed(Tile[][] board, int row, int col){
-        int numClosed = 0;
-        int rowMin = Math.max(0, row-1);
-        int rowMax = Math.min(board.length, row+2);
-        int colMin = Math.max(0, col-1);
-        int colMax = Math.min(board[0].length, col+2);
-        for (int r = rowMin; r < rowMax; r++) {
-            for (int c = colMin; c < colMax; c++) {
-                if(board[r][c].isClosed()){
-                    numClosed++;
-                }
-            }
-        }
-        return numClosed;
+    public int numNeighboringClosed(){
+        return store.numNeighboringClosed(index);
     }
 
     /**Sets this tile to being hovered over**/
     public void hover(){
-        if(state == CLOSED) {
-            isHovered = true;
-        }
+        store.hover(index);
     }
 
-    /**Sets this tile to being hovered over**/
+    /**Sets this tile to not being hovered over**/
     public void unHover(){
-        isHovered = false;
+        if(store.isHovered(index)){
+            store.unHover();
+        }
     }
 
     /**Sets this tile to be open unless if it is closed and not flagged**/
     public void reveal(){
-        if(state == CLOSED){
-            state = OPEN;
-        }
+        store.reveal(index);
     }
 
     /**Sets this tile to covered if questioned, to questioned if flagged, and to flagged if covered**/
     public void toggleState(){
-        if(state == CLOSED){
-            state = FLAGGED;
-        }else if(state == FLAGGED){
-            state = QUESTIONED;
-        }else if(state == QUESTIONED){
-            state = CLOSED;
-        }
+        store.toggleState(index);
     }
 
     /**Sets this tile to flagged if covered**/
     public void flag(){
-        if(state == CLOSED){
-            state = FLAGGED;
-        }
+        store.flag(index);
     }
 
     /**Returns true if tile is in the flagged state
      * @return if the tile is flagged**/
-    public boolean isFlagged(){ return (state == FLAGGED); }
+    public boolean isFlagged(){ return store.isFlagged(index); }
 
     /**Returns true if tile is in the questioned state
      * @return if the tile is questioned**/
-    public boolean isQuestioned(){ return (state == QUESTIONED); }
+    public boolean isQuestioned(){ return store.isQuestioned(index); }
 
     /**Returns true if tile is in the closed state
      * @return if the tile is closed**/
-    public boolean isClosed(){ return (state == CLOSED);}
+    public boolean isClosed(){ return store.isClosed(index); }
 
     /**Return true if tile is is the open state
      * @return if the tile is open**/
-    public boolean isOpen(){ return (state == OPEN); }
+    public boolean isOpen(){ return store.isOpen(index); }
 
     /**Returns if the tile is a bomb or not
      * @return if the tile is a bomb**/
-    public boolean checkIfBomb(){ return isBomb; }
+    public boolean checkIfBomb(){ return store.checkIfBomb(index); }
 
     /**Returns if the tile is hovered or not
      * @return if the tile is being hovered over by the mouse**/
-    public boolean isHovered(){ return isHovered; }
+    public boolean isHovered(){ return store.isHovered(index); }
 
     /**Returns the amount of neighboring bombs
      * @return the number of neighboring (8 tile square) tiles that are bombs**/
-    public int getNumNeighboringBombs(){ return numNeighboringBombs; }
+    public int getNumNeighboringBombs(){ return store.getNumNeighboringBombs(index); }
 
 }
@@ -0,0 +1,13 @@
+/**
+ * Something that wants to know when a tile on a board changes how it looks,
+ * such as the renderer, which only redraws the tiles it is told about
+ */
+public interface TileListener {
+
+    /**
+     * Called after a tile is opened, flagged, questioned, closed, hovered or unhovered
+     * @param i the index (row * columns + column) of the tile that changed
+     */
+    void tileChanged(int i);
+
+}
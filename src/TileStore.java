@@ -0,0 +1,537 @@
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * The compact store that holds the state of every tile in a board.
+ * Each tile is a bit in the bomb, open, flagged and questioned bitplanes, and its number of
+ * neighboring bombs is a 4 bit nibble, so a tile costs 8 bits rather than a Tile object.
+ * Tiles are addressed by their index, row * columns + column
+ */
+public class TileStore {
+
+    /**The bits of what the player has done to a tile, as getPlayerState returns them**/
+    public static final int OPENED = 1;
+    public static final int FLAGGED = 2;
+    public static final int QUESTIONED = 4;
+
+    /**The number of rows in the store**/
+    private int rows;
+
+    /**The number of columns in the store**/
+    private int columns;
+
+    /**One bit per tile, set if the tile is a bomb**/
+    private long[] bombs;
+
+    /**One bit per tile, set if the tile is open**/
+    private long[] open;
+
+    /**One bit per tile, set if the tile is flagged**/
+    private long[] flagged;
+
+    /**One bit per tile, set if the tile is questioned**/
+    private long[] questioned;
+
+    /**Sixteen 4 bit counts of neighboring bombs per long**/
+    private long[] neighboringBombs;
+
+    /**The index of the tile being hovered over, or -1 if there is none**/
+    private int hoveredTile;
+
+    /**The number of open tiles that are not bombs, kept up to date as tiles change**/
+    private int openSafeCount;
+
+    /**True once any bomb has been opened**/
+    private boolean isBombOpen;
+
+    /**The number of flagged tiles, kept up to date as tiles change**/
+    private int flagCount;
+
+    /**The index of the last bomb that was opened, or -1 if none has been**/
+    private int openedBomb;
+
+    /**The listeners that are told whenever a tile changes**/
+    private TileListener[] listeners;
+
+    /**
+     * The constructor for a store of closed tiles with no bombs
+     * @param rows the number of rows
+     * @param columns the number of columns
+     */
+    public TileStore(int rows, int columns){
+        if((long) rows * columns > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("Too many tiles: " + rows + "x" + columns);
+        }
+        this.rows = rows;
+        this.columns = columns;
+        int size = rows * columns;
+        int words = (size + 63) >>> 6;
+        bombs = new long[words];
+        open = new long[words];
+        flagged = new long[words];
+        questioned = new long[words];
+        neighboringBombs = new long[(size + 15) >>> 4];
+        hoveredTile = -1;
+        openSafeCount = 0;
+        isBombOpen = false;
+        flagCount = 0;
+        openedBomb = -1;
+        listeners = new TileListener[0];
+    }
+
+    /**
+     * The constructor for a copy of another store, with no listeners and no tile hovered
+     * @param source the store to copy
+     */
+    private TileStore(TileStore source){
+        this.rows = source.rows;
+        this.columns = source.columns;
+        bombs = source.bombs.clone();
+        open = source.open.clone();
+        flagged = source.flagged.clone();
+        questioned = source.questioned.clone();
+        neighboringBombs = source.neighboringBombs.clone();
+        hoveredTile = -1;
+        openSafeCount = source.openSafeCount;
+        isBombOpen = source.isBombOpen;
+        flagCount = source.flagCount;
+        openedBomb = source.openedBomb;
+        listeners = new TileListener[0];
+    }
+
+    /**
+     * Returns a copy of the store, which can be changed without changing this one
+     * @return the copy, with no listeners and no tile hovered
+     */
+    public TileStore copy(){
+        return new TileStore(this);
+    }
+
+    /**
+     * Adds a listener that will be told whenever a tile changes
+     * @param listener the listener to add
+     */
+    public void addTileListener(TileListener listener){
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    /**
+     * Removes a listener so that it is no longer told about changes
+     * @param listener the listener to remove
+     */
+    public void removeTileListener(TileListener listener){
+        for (int l = 0; l < listeners.length; l++) {
+            if(listeners[l] == listener){
+                TileListener[] remaining = new TileListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, remaining, 0, l);
+                System.arraycopy(listeners, l + 1, remaining, l, remaining.length - l);
+                listeners = remaining;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Tells every listener that a tile has changed
+     * @param i the index of the tile
+     */
+    private void tileChanged(int i){
+        for (TileListener listener : listeners) {
+            listener.tileChanged(i);
+        }
+    }
+
+    /**
+     * Returns true if a bit is set in a bitplane
+     * @param plane the bitplane
+     * @param i the index of the tile
+     * @return if the tile's bit is set
+     */
+    private static boolean get(long[] plane, int i){
+        return (plane[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * Sets a bit in a bitplane
+     * @param plane the bitplane
+     * @param i the index of the tile
+     */
+    private static void set(long[] plane, int i){
+        plane[i >>> 6] |= 1L << i;
+    }
+
+    /**
+     * Clears a bit in a bitplane
+     * @param plane the bitplane
+     * @param i the index of the tile
+     */
+    private static void clear(long[] plane, int i){
+        plane[i >>> 6] &= ~(1L << i);
+    }
+
+    /**Sets a tile to "be" a bomb tile
+     * @param i the index of the tile**/
+    public void setAsBomb(int i){
+        set(bombs, i);
+    }
+
+    /**
+     * Sets the number of neighboring bombs of every tile in one pass over the bombs, adding each
+     * bomb to the counts of its 8 neighbors. The bombs are found a word of the bitplane at a time,
+     * so this costs time in the number of bombs rather than in the number of tiles they are spread over.
+     * The counts must all still be zero, as they are when the store is made
+     */
+    public void countNeighboringBombs(){
+        for (int w = 0; w < bombs.length; w++) {
+            long word = bombs[w];
+            while(word != 0){
+                int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                int row = i / columns;
+                int col = i % columns;
+                int rowMin = Math.max(0, row-1);
+                int rowMax = Math.min(rows, row+2);
+                int colMin = Math.max(0, col-1);
+                int colMax = Math.min(columns, col+2);
+                for (int r = rowMin; r < rowMax; r++) {
+                    for (int c = colMin; c < colMax; c++) {
+                        int n = r*columns + c;
+                        if(n != i){
+                            neighboringBombs[n >>> 4] += 1L << ((n & 15) << 2);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the bits of a run of up to 64 tiles in a bitplane, the first tile in the lowest bit
+     * @param plane the bitplane
+     * @param start the index of the first tile
+     * @param width the number of tiles
+     * @return the bits of the run, with every bit above it clear
+     */
+    private static long run(long[] plane, int start, int width){
+        int w = start >>> 6;
+        int shift = start & 63;
+        long bits = plane[w] >>> shift;
+        if(shift + width > 64){
+            bits |= plane[w + 1] << (64 - shift);
+        }
+        return bits & (-1L >>> (64 - width));
+    }
+
+    /**
+     * returns an int equal to the amount of neighboring flags. Each row of the 9 tile square is read
+     * out of the flagged bitplane as one run of bits and counted with bitCount, so no tile is looked at on its own
+     * @param i the index of the tile
+     * @return the number of flagged tiles in the tile's 9 tile square
+     */
+    public int numNeighboringFlags(int i){
+        int row = i / columns;
+        int col = i % columns;
+        int colMin = Math.max(0, col-1);
+        int width = Math.min(columns, col+2) - colMin;
+        int rowMax = Math.min(rows, row+2);
+        int numFlags = 0;
+        for (int r = Math.max(0, row-1); r < rowMax; r++) {
+            numFlags += Long.bitCount(run(flagged, r*columns + colMin, width));
+        }
+        return numFlags;
+    }
+
+    /**
+     * returns an int equal to the amount of neighboring closed tiles, counting each row of the
+     * 9 tile square a run of bits at a time as numNeighboringFlags does
+     * @param i the index of the tile
+     * @return the number of closed tiles in the tile's 9 tile square
+     */
+    public int numNeighboringClosed(int i){
+        int row = i / columns;
+        int col = i % columns;
+        int colMin = Math.max(0, col-1);
+        int width = Math.min(columns, col+2) - colMin;
+        int rowMax = Math.min(rows, row+2);
+        int numClosed = 0;
+        for (int r = Math.max(0, row-1); r < rowMax; r++) {
+            int start = r*columns + colMin;
+            long notClosed = run(open, start, width) | run(flagged, start, width) | run(questioned, start, width);
+            numClosed += width - Long.bitCount(notClosed);
+        }
+        return numClosed;
+    }
+
+    /**Moves the hover to a tile, so that the tile is hovered over if it is closed and no other tile is.
+     * Only the tiles whose hover changes are reported to the listeners, so moving the hover within
+     * the same tile costs nothing
+     * @param i the index of the tile**/
+    public void hover(int i){
+        if(hoveredTile == i){
+            return;
+        }
+        unHover();
+        if(isClosed(i)) {
+            hoveredTile = i;
+            tileChanged(i);
+        }
+    }
+
+    /**Sets no tile to being hovered over, touching only the tile that was hovered**/
+    public void unHover(){
+        if(hoveredTile >= 0){
+            int old = hoveredTile;
+            hoveredTile = -1;
+            tileChanged(old);
+        }
+    }
+
+    /**Sets a tile to be open if it is closed
+     * @param i the index of the tile**/
+    public void reveal(int i){
+        if(isClosed(i)){
+            set(open, i);
+            if(get(bombs, i)){
+                isBombOpen = true;
+                openedBomb = i;
+            }else{
+                openSafeCount++;
+            }
+            tileChanged(i);
+        }
+    }
+
+    /**Sets a tile to covered if questioned, to questioned if flagged, and to flagged if covered
+     * @param i the index of the tile**/
+    public void toggleState(int i){
+        if(isClosed(i)){
+            set(flagged, i);
+            flagCount++;
+        }else if(get(flagged, i)){
+            clear(flagged, i);
+            set(questioned, i);
+            flagCount--;
+        }else if(get(questioned, i)){
+            clear(questioned, i);
+        }else{
+            return;
+        }
+        tileChanged(i);
+    }
+
+    /**Sets a tile to flagged if covered
+     * @param i the index of the tile**/
+    public void flag(int i){
+        if(isClosed(i)){
+            set(flagged, i);
+            flagCount++;
+            tileChanged(i);
+        }
+    }
+
+    /**
+     * Flags every bomb that is not open, including any that are questioned
+     */
+    public void flagAllBombs(){
+        for (int w = 0; w < bombs.length; w++) {
+            long b = bombs[w] & ~open[w];
+            long changed = b & ~flagged[w];
+            questioned[w] &= ~b;
+            flagCount += Long.bitCount(changed);
+            flagged[w] |= b;
+            while(changed != 0){
+                tileChanged((w << 6) + Long.numberOfTrailingZeros(changed));
+                changed &= changed - 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes that saveTo writes
+     * @return the size of the bitplanes in bytes
+     */
+    public int getSavedBytes(){
+        return 4 * bombs.length * 8;
+    }
+
+    /**
+     * Returns the number of bytes that saveTo writes for a store of a given size, without making one
+     * @param rows the number of rows
+     * @param columns the number of columns
+     * @return the size of the bitplanes in bytes
+     */
+    public static long getSavedBytes(int rows, int columns){
+        return 4 * (((long) rows * columns + 63) >>> 6) * 8;
+    }
+
+    /**
+     * Writes part of the bomb, open, flagged and questioned bitplanes, as many whole longs as fit in a buffer,
+     * so that they can be written out through a small buffer
+     * @param buffer the buffer to write to, in the buffer's byte order
+     * @param word the index of the first long to write, counting through the four bitplanes in turn
+     * @return the index of the long after the last one written, which is getSavedBytes / 8 once all are written
+     */
+    public int saveTo(ByteBuffer buffer, int word){
+        LongBuffer longs = buffer.asLongBuffer();
+        long[][] planes = {bombs, open, flagged, questioned};
+        while(word < 4 * bombs.length && longs.hasRemaining()){
+            int from = word % bombs.length;
+            int n = Math.min(bombs.length - from, longs.remaining());
+            longs.put(planes[word / bombs.length], from, n);
+            word += n;
+        }
+        buffer.position(buffer.position() + longs.position() * 8);
+        return word;
+    }
+
+    /**
+     * Reads part of the bitplanes as written by saveTo, as many whole longs as the buffer has. Once the last
+     * is read, counts the neighboring bombs and works out the counts of flags and opened tiles from the
+     * bitplanes rather than tile by tile. The store must not have been changed since it was made
+     * @param buffer the buffer to read from, in the buffer's byte order
+     * @param word the index of the first long to read, counting through the four bitplanes in turn
+     * @return the index of the long after the last one read, which is getSavedBytes / 8 once all are read
+     */
+    public int loadFrom(ByteBuffer buffer, int word){
+        LongBuffer longs = buffer.asLongBuffer();
+        long[][] planes = {bombs, open, flagged, questioned};
+        while(word < 4 * bombs.length && longs.hasRemaining()){
+            int from = word % bombs.length;
+            int n = Math.min(bombs.length - from, longs.remaining());
+            longs.get(planes[word / bombs.length], from, n);
+            word += n;
+        }
+        buffer.position(buffer.position() + longs.position() * 8);
+        if(word < 4 * bombs.length){
+            return word;
+        }
+        countNeighboringBombs();
+        for (int w = 0; w < bombs.length; w++) {
+            openSafeCount += Long.bitCount(open[w] & ~bombs[w]);
+            flagCount += Long.bitCount(flagged[w]);
+            long openBombs = open[w] & bombs[w];
+            if(openBombs != 0){
+                isBombOpen = true;
+                openedBomb = (w << 6) + Long.numberOfTrailingZeros(openBombs);
+            }
+        }
+        return word;
+    }
+
+    /**
+     * Returns what the player has done to a tile
+     * @param i the index of the tile
+     * @return OPENED, FLAGGED or QUESTIONED, or 0 if the tile is closed
+     */
+    public int getPlayerState(int i){
+        int w = i >>> 6;
+        long bit = 1L << i;
+        return ((open[w] & bit) != 0 ? OPENED : 0)
+                | ((flagged[w] & bit) != 0 ? FLAGGED : 0)
+                | ((questioned[w] & bit) != 0 ? QUESTIONED : 0);
+    }
+
+    /**
+     * Sets what the player has done to a tile, as a saved game records it.
+     * A tile that is open stays open, as it would in a game
+     * @param i the index of the tile
+     * @param state OPENED, FLAGGED or QUESTIONED, or 0 for closed
+     */
+    public void setPlayerState(int i, int state){
+        if(get(flagged, i)){
+            clear(flagged, i);
+            flagCount--;
+        }
+        clear(questioned, i);
+        if((state & OPENED) != 0){
+            reveal(i);
+            return;
+        }
+        if((state & FLAGGED) != 0){
+            set(flagged, i);
+            flagCount++;
+        }else if((state & QUESTIONED) != 0){
+            set(questioned, i);
+        }
+        tileChanged(i);
+    }
+
+    /**
+     * Returns the number of flagged tiles
+     * @return the number of flags
+     */
+    public int getFlagCount(){ return flagCount; }
+
+    /**
+     * Returns the number of open tiles that are not bombs
+     * @return the number of safely opened tiles
+     */
+    public int getOpenSafeCount(){ return openSafeCount; }
+
+    /**
+     * Returns true if any bomb is open
+     * @return if a bomb has been opened
+     */
+    public boolean isBombOpen(){ return isBombOpen; }
+
+    /**
+     * Returns the last bomb that was opened, which is where the explosion is drawn
+     * @return the index of the bomb, or -1 if no bomb has been opened
+     */
+    public int getOpenedBomb(){ return openedBomb; }
+
+    /**Returns true if a tile is in the flagged state
+     * @param i the index of the tile
+     * @return if the tile is flagged**/
+    public boolean isFlagged(int i){ return get(flagged, i); }
+
+    /**Returns true if a tile is in the questioned state
+     * @param i the index of the tile
+     * @return if the tile is questioned**/
+    public boolean isQuestioned(int i){ return get(questioned, i); }
+
+    /**Returns true if a tile is in the closed state
+     * @param i the index of the tile
+     * @return if the tile is closed**/
+    public boolean isClosed(int i){
+        int w = i >>> 6;
+        return ((open[w] | flagged[w] | questioned[w]) & (1L << i)) == 0;
+    }
+
+    /**Return true if a tile is is the open state
+     * @param i the index of the tile
+     * @return if the tile is open**/
+    public boolean isOpen(int i){ return get(open, i); }
+
+    /**Returns if a tile is a bomb or not
+     * @param i the index of the tile
+     * @return if the tile is a bomb**/
+    public boolean checkIfBomb(int i){ return get(bombs, i); }
+
+    /**Returns if a tile is hovered or not
+     * @param i the index of the tile
+     * @return if the tile is being hovered over by the mouse**/
+    public boolean isHovered(int i){ return hoveredTile == i; }
+
+    /**Returns the amount of neighboring bombs of a tile
+     * @param i the index of the tile
+     * @return the number of neighboring (8 tile square) tiles that are bombs**/
+    public int getNumNeighboringBombs(int i){
+        return (int) (neighboringBombs[i >>> 4] >>> ((i & 15) << 2)) & 0xF;
+    }
+
+    /**
+     * Returns the number of rows in the store
+     * @return the number of rows
+     */
+    public int getRows(){ return rows; }
+
+    /**
+     * Returns the number of columns in the store
+     * @return the number of columns
+     */
+    public int getColumns(){ return columns; }
+
+}